@@ -0,0 +1,160 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   VectorVariationKernels.java
+ */
+package sgavariationanalysis.continuous;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The variation kernels built on the incubating Vector API, processing as
+ * many variables at a time as the preferred species of the platform holds
+ * and finishing the remainder one variable at a time. Every lane performs
+ * the same separate multiplies and adds as the scalar kernels, without
+ * fusing them, so the children are identical to those of the scalar
+ * kernels.
+ *
+ * This class is compiled for Java 17 into the versioned part of the
+ * multi-release jar and is only loaded by
+ * {@link VariationKernels#preferred()}.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+final class VectorVariationKernels extends VariationKernels {
+
+
+    /* The widest float species supported by the platform */
+    private static final VectorSpecies<Float> SPECIES =
+            FloatVector.SPECIES_PREFERRED;
+
+
+/*============================== Kernel Methods ==============================*/
+
+
+    @Override
+    public String getName() {
+
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public void arithmetic(float[] x1, int offX1, float[] x2, int offX2,
+            float[] y1, int offY1, float[] y2, int offY2, float a, float b,
+            int numVars) {
+
+        int bound = SPECIES.loopBound(numVars);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector v1 = FloatVector.fromArray(SPECIES, x1, offX1 + i);
+            FloatVector v2 = FloatVector.fromArray(SPECIES, x2, offX2 + i);
+            v1.mul(a).add(v2.mul(b)).intoArray(y1, offY1 + i);
+            v1.mul(b).add(v2.mul(a)).intoArray(y2, offY2 + i);
+        }
+
+        for (; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            y1[offY1 + i] = a * v1 + b * v2;
+            y2[offY2 + i] = b * v1 + a * v2;
+        }
+    }
+
+    @Override
+    public void localArithmetic(float[] x1, int offX1, float[] x2,
+            int offX2, float[] y1, int offY1, float[] y2, int offY2,
+            float[] a, int numVars) {
+
+        int bound = SPECIES.loopBound(numVars);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector v1 = FloatVector.fromArray(SPECIES, x1, offX1 + i);
+            FloatVector v2 = FloatVector.fromArray(SPECIES, x2, offX2 + i);
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.broadcast(SPECIES, 1.0f).sub(va);
+            va.mul(v1).add(vb.mul(v2)).intoArray(y1, offY1 + i);
+            vb.mul(v1).add(va.mul(v2)).intoArray(y2, offY2 + i);
+        }
+
+        for (; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            float b = 1.0f - a[i];
+            y1[offY1 + i] = a[i] * v1 + b * v2;
+            y2[offY2 + i] = b * v1 + a[i] * v2;
+        }
+    }
+
+    @Override
+    public void linear(float[] x1, int offX1, float[] x2, int offX2,
+            float[] y1, int offY1, float[] y2, int offY2, float[] y3,
+            int offY3, float l, float u, int numVars) {
+
+        int bound = SPECIES.loopBound(numVars);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector v1 = FloatVector.fromArray(SPECIES, x1, offX1 + i);
+            FloatVector v2 = FloatVector.fromArray(SPECIES, x2, offX2 + i);
+            FloatVector c1 = v1.mul(0.5f).add(v2.mul(0.5f));
+            FloatVector c2 = v1.mul(1.5f).sub(v2.mul(0.5f));
+            FloatVector c3 = v1.mul(-0.5f).add(v2.mul(1.5f));
+
+            VectorMask<Float> out2 = c2.compare(VectorOperators.LE, l)
+                    .or(c2.compare(VectorOperators.GE, u));
+            VectorMask<Float> out3 = c3.compare(VectorOperators.LE, l)
+                    .or(c3.compare(VectorOperators.GE, u));
+
+            c1.intoArray(y1, offY1 + i);
+            c2.blend(c1, out2).intoArray(y2, offY2 + i);
+            c3.blend(c1, out3).intoArray(y3, offY3 + i);
+        }
+
+        for (; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            float c1 = 0.5f * v1 + 0.5f * v2;
+            float c2 = 1.5f * v1 - 0.5f * v2;
+            float c3 = - 0.5f * v1 + 1.5f * v2;
+
+            if (c2 <= l || c2 >= u) {
+                c2 = c1;
+            }
+            if (c3 <= l || c3 >= u) {
+                c3 = c1;
+            }
+
+            y1[offY1 + i] = c1;
+            y2[offY2 + i] = c2;
+            y3[offY3 + i] = c3;
+        }
+    }
+
+    @Override
+    public void uniformMutation(float[] x, int offX, float[] draws,
+            float l, float u, int numVars) {
+
+        int bound = SPECIES.loopBound(numVars);
+        float range = u - l;
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector d = FloatVector.fromArray(SPECIES, draws, i);
+            VectorMask<Float> hit = d.compare(VectorOperators.GE, 0.0f);
+            if (hit.anyTrue()) {
+                FloatVector v = FloatVector.fromArray(SPECIES, x, offX + i);
+                v.blend(d.mul(range).add(l), hit).intoArray(x, offX + i);
+            }
+        }
+
+        for (; i < numVars; i++) {
+            if (draws[i] >= 0.0f) {
+                x[offX + i] = draws[i] * range + l;
+            }
+        }
+    }
+}
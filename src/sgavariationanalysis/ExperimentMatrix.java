@@ -0,0 +1,597 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ExperimentMatrix.java
+ */
+package sgavariationanalysis;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import sgavariationanalysis.cache.FitnessCache;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * A headless runner for a matrix of experiments. Every combination of the
+ * chosen representations, test functions and crossover methods is a cell,
+ * every cell is run for the configured number of trials in the same JVM,
+ * and one row of results per cell is written to a table.
+ *
+ * The matrix is given as options of the form key=value, either on the
+ * command line or, with an argument of the form @file, one per line of a
+ * file in which blank lines and lines starting with # are ignored:
+ *
+ * <pre>
+ *   representation=binary,gray,continuous   (default all)
+ *   function=1,2,3                          (default all)
+ *   crossover=SPC,TPC,WAC                   (names or ids, default all)
+ *   warmup=10                               (trials per cell, default 0)
+ *   threads=8                               (default NUM_THREADS)
+ *   out=results.tsv                         (default standard output)
+ *   popSize=100000                          (default POP_SIZE)
+ *   maxGen=10000                            (default MAX_GEN)
+ *   crossoverProb=0.8                       (default CROSSOVER_PROB)
+ *   mutationProb=0.01                       (default MUTATION_PROB)
+ *   trials=100                              (default NUM_TRIALS)
+ *   alias=true                              (default IS_ALIAS_SELECTION)
+ * </pre>
+ *
+ * A crossover id or name applies to every representation it exists for.
+ * The trials of every cell are scheduled on one pool, so cells run across
+ * all the cores rather than one after another. Each cell is given a
+ * stream split from RAND in cell order, and each of its trials a stream
+ * split from the cell's in trial order, so the table is reproduced
+ * exactly by the seed. The warm-up trials run every cell first, from a
+ * stream of their own, and their results are discarded.
+ *
+ * The table has no evaluation counts. The counters of BinaryIndividual and
+ * ContinuousIndividual are static, and with the cells running at the same
+ * time they would mix the evaluations of every cell, so the matrix leaves
+ * them out rather than report figures no row can own.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class ExperimentMatrix {
+
+
+/*================================== Constants ===============================*/
+
+
+    /* The representations, in the order of the interactive menu */
+    private static final String[] REPRESENTATIONS =
+            { "binary", "gray", "continuous" };
+
+    /* The number of test functions */
+    private static final int NUM_FUNCTIONS = 3;
+
+    /* The binary crossover names, indexed by id - 1 */
+    private static final String[] BINARY_CROSSOVERS =
+            { "SPC", "DPC", "SPCRS", "DPCRS", "RC", "UC", "SC", "SCRS", "TPC" };
+
+    /* The continuous crossover names, indexed by id - 1 */
+    private static final String[] CONTINUOUS_CROSSOVERS =
+            { "WAC", "LAC", "LC", "HC", "BC" };
+
+    /* The header of the results table */
+    private static final String HEADER = "representation\tfunction\t"
+            + "crossover\tbest\tworst\tmean\tms/trial";
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The cells of the matrix, in the order of the table */
+    private final List<Cell> cells;
+
+    /* The number of warm-up trials run for each cell */
+    private final int warmup;
+
+    /* The number of threads the trials are run on */
+    private final int threads;
+
+    /* The file the table is written to, or null for standard output */
+    private final String out;
+
+    /* The configuration of every cell, gray code aside */
+    private final GAConfig config;
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates a matrix from the given options.
+     *
+     * @param options the options, each of the form key=value
+     */
+    public ExperimentMatrix(List<String> options) {
+
+        List<String> reps = Arrays.asList(REPRESENTATIONS);
+        List<String> functions = Arrays.asList("1", "2", "3");
+        List<String> crossovers = Arrays.asList("all");
+        int warmupOpt = 0;
+        int threadsOpt = SGAVariationAnalysis.NUM_THREADS;
+        String outOpt = null;
+        GAConfig base = SGAVariationAnalysis.CONFIG;
+        int popSize = base.getPopSize();
+        int maxGen = base.getMaxGen();
+        float crossoverProb = base.getCrossoverProb();
+        float mutationProb = base.getMutationProb();
+        int numTrials = base.getNumTrials();
+        boolean isAliasSelection = base.isAliasSelection();
+
+        for (String option : options) {
+            int eq = option.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("ExperimentMatrix: "
+                        + "Invalid option " + option + ".");
+            }
+            String key = option.substring(0, eq).trim();
+            String value = option.substring(eq + 1).trim();
+            switch (key) {
+                case "representation":
+                    reps = split(value);
+                    break;
+                case "function":
+                    functions = split(value);
+                    break;
+                case "crossover":
+                    crossovers = split(value);
+                    break;
+                case "warmup":
+                    warmupOpt = parseInt(key, value, 0);
+                    break;
+                case "threads":
+                    threadsOpt = parseInt(key, value, 1);
+                    break;
+                case "out":
+                    outOpt = value;
+                    break;
+                case "popSize":
+                    popSize = parseInt(key, value, 2);
+                    break;
+                case "maxGen":
+                    maxGen = parseInt(key, value, 1);
+                    break;
+                case "crossoverProb":
+                    crossoverProb = parseFloat(key, value);
+                    break;
+                case "mutationProb":
+                    mutationProb = parseFloat(key, value);
+                    break;
+                case "trials":
+                    numTrials = parseInt(key, value, 1);
+                    break;
+                case "alias":
+                    isAliasSelection = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("ExperimentMatrix: "
+                            + "Unknown option " + key + ".");
+            }
+        }
+
+        cells = createCells(reps, functions, crossovers);
+        warmup = warmupOpt;
+        threads = threadsOpt;
+        out = outOpt;
+        config = new GAConfig(popSize, maxGen, crossoverProb, mutationProb,
+                numTrials, base.isGray(), isAliasSelection);
+    }
+
+
+/*=============================== Static Methods =============================*/
+
+    /**
+     * Runs the matrix given by the arguments and writes its table.
+     *
+     * @param args the options, or a single @file naming a file of options
+     */
+    public static void main(String[] args) {
+
+        try {
+            new ExperimentMatrix(readOptions(args)).run();
+        }
+        catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the options given by the arguments, reading the lines of
+     * any @file argument in its place.
+     *
+     * @param args the arguments
+     * @return the options
+     * @throws IOException if an options file cannot be read
+     */
+    public static List<String> readOptions(String[] args) throws IOException {
+
+        List<String> res = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("@")) {
+                for (String line : Files.readAllLines(
+                        Paths.get(arg.substring(1)), StandardCharsets.UTF_8)) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        res.add(line);
+                    }
+                }
+            }
+            else {
+                res.add(arg);
+            }
+        }
+
+        return res;
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+    /**
+     * Runs every cell of the matrix and writes the results table.
+     *
+     * @throws IOException if the table cannot be written
+     */
+    public void run() throws IOException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            if (warmup > 0) {
+                runCells(executor, new RandomStream(~SGAVariationAnalysis.SEED),
+                        warmup);
+            }
+            List<String> rows = runCells(executor, SGAVariationAnalysis.RAND,
+                    config.getNumTrials());
+
+            if (out == null) {
+                writeTable(System.out, rows);
+            }
+            else {
+                try (PrintStream ps = new PrintStream(
+                        new FileOutputStream(out), false, "UTF-8")) {
+                    writeTable(ps, rows);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of cells in the matrix
+     */
+    public int getNumCells() {
+        return cells.size();
+    }
+
+
+/*============================== Private Methods =============================*/
+
+    /**
+     * Runs the given number of trials of every cell on the executor and
+     * returns a row of the table for each cell. Each cell's trials are
+     * merged in trial order.
+     *
+     * @param executor the executor the trials are run on
+     * @param root the stream the cells' streams are split from
+     * @param numTrials the number of trials of each cell
+     * @return the rows of the table, in cell order
+     */
+    private List<String> runCells(ExecutorService executor, RandomStream root,
+            int numTrials) {
+
+        List<List<Future<TimedResult>>> futures =
+                new ArrayList<>(cells.size());
+
+        for (Cell cell : cells) {
+            RandomStream cellStream = root.split();
+            FitnessCache cache = cell.createCache();
+            List<Future<TimedResult>> trials = new ArrayList<>(numTrials);
+            for (int i = 0; i < numTrials; i++) {
+                RandomStream rand = cellStream.split();
+                trials.add(executor.submit(timed(cell, rand, cache, config)));
+            }
+            futures.add(trials);
+        }
+
+        List<String> rows = new ArrayList<>(cells.size());
+
+        try {
+            for (int c = 0; c < cells.size(); c++) {
+                Cell cell = cells.get(c);
+                TrialResult<?> res = null;
+                long nanos = 0;
+                for (Future<TimedResult> future : futures.get(c)) {
+                    TimedResult trial = future.get();
+                    res = res == null ? trial.result :
+                            merge(res, trial.result, cell.isMaxProblem());
+                    nanos += trial.nanos;
+                }
+                rows.add(cell.row(res, nanos / 1e6 / numTrials, numTrials,
+                        config));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ExperimentMatrix: "
+                    + "Interrupted while running trials.", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("ExperimentMatrix: "
+                    + "Trial failed.", e.getCause());
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns a task that runs one trial of the cell and times it.
+     *
+     * @param cell the cell
+     * @param rand the trial's stream
+     * @param cache the cell's fitness cache, or null for none
+     * @param config the configuration of the run
+     * @return the task
+     */
+    private static Callable<TimedResult> timed(Cell cell, RandomStream rand,
+            FitnessCache cache, GAConfig config) {
+
+        return () -> {
+            long start = System.nanoTime();
+            TrialResult<?> res = cell.runTrial(rand, cache, config);
+            return new TimedResult(res, System.nanoTime() - start);
+        };
+    }
+
+    /**
+     * Merges two trial results of the same cell.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> TrialResult<?> merge(TrialResult<T> earlier,
+            TrialResult<?> later, boolean isMaxProblem) {
+
+        return earlier.merge((TrialResult<T>) later, isMaxProblem);
+    }
+
+    /**
+     * Writes the seed, the header and the rows of the table.
+     */
+    private void writeTable(PrintStream ps, List<String> rows) {
+
+        ps.println("# seed=" + SGAVariationAnalysis.SEED + " popSize="
+                + config.getPopSize() + " maxGen=" + config.getMaxGen()
+                + " crossoverProb=" + config.getCrossoverProb()
+                + " mutationProb=" + config.getMutationProb()
+                + " trials=" + config.getNumTrials()
+                + " alias=" + config.isAliasSelection());
+        ps.println(HEADER);
+        for (String row : rows) {
+            ps.println(row);
+        }
+        ps.flush();
+    }
+
+    /**
+     * Creates the cells of the matrix, representations outermost and
+     * crossover methods innermost.
+     */
+    private static List<Cell> createCells(List<String> reps,
+            List<String> functions, List<String> crossovers) {
+
+        List<Cell> res = new ArrayList<>();
+        GATestFunction[] funcs = new GATestFunction[NUM_FUNCTIONS + 1];
+
+        for (String rep : reps) {
+            int repId = Arrays.asList(REPRESENTATIONS).indexOf(rep);
+            if (repId < 0) {
+                throw new IllegalArgumentException("ExperimentMatrix: "
+                        + "Unknown representation " + rep + ".");
+            }
+            String[] names = repId == 2 ?
+                    CONTINUOUS_CROSSOVERS : BINARY_CROSSOVERS;
+            for (String function : functions) {
+                int functionId = parseInt("function", function, 1);
+                if (functionId > NUM_FUNCTIONS) {
+                    throw new IllegalArgumentException("ExperimentMatrix: "
+                            + "Unknown function " + function + ".");
+                }
+                if (funcs[functionId] == null) {
+                    funcs[functionId] =
+                            SGAVariationAnalysis.createFunction(functionId);
+                }
+                for (int crossoverId : crossoverIds(crossovers, names)) {
+                    res.add(new Cell(repId, funcs[functionId], functionId,
+                            crossoverId, names[crossoverId - 1]));
+                }
+            }
+        }
+
+        if (res.isEmpty()) {
+            throw new IllegalArgumentException("ExperimentMatrix: "
+                    + "Empty matrix.");
+        }
+
+        return res;
+    }
+
+    /**
+     * Returns the ids of the given crossover names or ids that exist for
+     * a representation, in the order of its menu.
+     */
+    private static List<Integer> crossoverIds(List<String> crossovers,
+            String[] names) {
+
+        List<Integer> res = new ArrayList<>();
+
+        for (int id = 1; id <= names.length; id++) {
+            for (String crossover : crossovers) {
+                if (crossover.equalsIgnoreCase("all") ||
+                        crossover.equalsIgnoreCase(names[id - 1]) ||
+                        crossover.equals(Integer.toString(id))) {
+                    res.add(id);
+                    break;
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Splits a comma separated option value.
+     */
+    private static List<String> split(String value) {
+
+        List<String> res = new ArrayList<>();
+
+        for (String token : value.split(",")) {
+            if (!token.trim().isEmpty()) {
+                res.add(token.trim());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Parses an integer option value of at least the given minimum.
+     */
+    private static int parseInt(String key, String value, int min) {
+
+        try {
+            int res = Integer.parseInt(value);
+            if (res >= min) {
+                return res;
+            }
+        }
+        catch (NumberFormatException e) {
+            // reported below
+        }
+
+        throw new IllegalArgumentException("ExperimentMatrix: Invalid "
+                + key + " " + value + ".");
+    }
+
+    /**
+     * Parses a float option value. Its range is checked by GAConfig.
+     */
+    private static float parseFloat(String key, String value) {
+
+        try {
+            return Float.parseFloat(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ExperimentMatrix: Invalid "
+                    + key + " " + value + ".");
+        }
+    }
+
+
+/*============================== Nested Classes ==============================*/
+
+
+    /**
+     * One combination of representation, test function and crossover.
+     */
+    private static final class Cell {
+
+        /* The index of the representation in REPRESENTATIONS */
+        private final int repId;
+
+        /* The test function, shared by every cell of the function */
+        private final GATestFunction testFunc;
+
+        /* The id of the test function */
+        private final int functionId;
+
+        /* The id of the crossover method */
+        private final int crossoverId;
+
+        /* The name of the crossover method */
+        private final String crossoverName;
+
+        Cell(int repId, GATestFunction testFunc, int functionId,
+                int crossoverId, String crossoverName) {
+            this.repId = repId;
+            this.testFunc = testFunc;
+            this.functionId = functionId;
+            this.crossoverId = crossoverId;
+            this.crossoverName = crossoverName;
+        }
+
+        boolean isMaxProblem() {
+            return testFunc.isMaxProblem();
+        }
+
+        FitnessCache createCache() {
+
+            if (!SGAVariationAnalysis.IS_FITNESS_CACHE) {
+                return null;
+            }
+
+            return repId == 2 ?
+                    FitnessCache.forContinuous(testFunc,
+                            SGAVariationAnalysis.FITNESS_CACHE_SIZE,
+                            SGAVariationAnalysis.FITNESS_CACHE_QUANTUM) :
+                    FitnessCache.forBinary(testFunc,
+                            SGAVariationAnalysis.FITNESS_CACHE_SIZE);
+        }
+
+        TrialResult<?> runTrial(RandomStream rand, FitnessCache cache,
+                GAConfig config) {
+
+            if (repId == 2) {
+                return SGAVariationAnalysis.continuousTrial(testFunc, rand,
+                        config, crossoverId, cache);
+            }
+
+            return SGAVariationAnalysis.binaryTrial(testFunc, rand,
+                    config.withGray(repId == 1), crossoverId, cache);
+        }
+
+        String row(TrialResult<?> res, double msPerTrial, int numTrials,
+                GAConfig config) {
+
+            float meanObj = (float) (res.getTotalObj() / ((double) numTrials
+                    * config.getMaxGen() * config.getPopSize()));
+
+            return REPRESENTATIONS[repId] + "\t" + "Function" + functionId
+                    + "\t" + crossoverName + "\t" + res.getBestObj() + "\t"
+                    + res.getWorstObj() + "\t" + meanObj + "\t"
+                    + String.format("%.3f", msPerTrial);
+        }
+    }
+
+    /**
+     * The result of one trial and the time it took.
+     */
+    private static final class TimedResult {
+
+        /* The result of the trial */
+        private final TrialResult<?> result;
+
+        /* The time the trial took, in nanoseconds */
+        private final long nanos;
+
+        TimedResult(TrialResult<?> result, long nanos) {
+            this.result = result;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   GAConfig.java
+ */
+package sgavariationanalysis;
+
+/**
+ * The parameters of a run of the GA. A configuration is immutable and is
+ * validated when it is created, so the populations and variation operators
+ * it is passed to can size their arrays from it and rely on it. The
+ * population size must be even, as reproduction mates the individuals of
+ * the mating pool in pairs.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class GAConfig {
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The number of individuals in a population, an even number */
+    private final int popSize;
+
+    /* The number of generations of a trial */
+    private final int maxGen;
+
+    /* The probability that a pair of parents is crossed over */
+    private final float crossoverProb;
+
+    /* The probability that a gene or variable is mutated */
+    private final float mutationProb;
+
+    /* The number of trials of a run */
+    private final int numTrials;
+
+    /* A flag for gray code representation of binary chromosomes */
+    private final boolean isGray;
+
+    /* A flag for selection with the alias method roulette wheel */
+    private final boolean isAliasSelection;
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates a configuration.
+     *
+     * @param popSize the population size, an even number of at least 2
+     * @param maxGen the number of generations, at least 1
+     * @param crossoverProb the crossover probability, in [0, 1]
+     * @param mutationProb the mutation probability, in [0, 1]
+     * @param numTrials the number of trials, at least 1
+     * @param isGray a flag for gray code representation
+     * @param isAliasSelection a flag for alias method selection
+     */
+    public GAConfig(int popSize, int maxGen, float crossoverProb,
+            float mutationProb, int numTrials, boolean isGray,
+            boolean isAliasSelection) {
+
+        if (popSize < 2 || popSize % 2 != 0) {
+            throw new IllegalArgumentException("GAConfig: Invalid "
+                    + "population size " + popSize + ", it must be even.");
+        }
+        if (maxGen < 1) {
+            throw new IllegalArgumentException("GAConfig: Invalid number "
+                    + "of generations.");
+        }
+        if (!(crossoverProb >= 0.0f && crossoverProb <= 1.0f)) {
+            throw new IllegalArgumentException("GAConfig: Invalid "
+                    + "crossover probability.");
+        }
+        if (!(mutationProb >= 0.0f && mutationProb <= 1.0f)) {
+            throw new IllegalArgumentException("GAConfig: Invalid "
+                    + "mutation probability.");
+        }
+        if (numTrials < 1) {
+            throw new IllegalArgumentException("GAConfig: Invalid number "
+                    + "of trials.");
+        }
+
+        this.popSize = popSize;
+        this.maxGen = maxGen;
+        this.crossoverProb = crossoverProb;
+        this.mutationProb = mutationProb;
+        this.numTrials = numTrials;
+        this.isGray = isGray;
+        this.isAliasSelection = isAliasSelection;
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+    /**
+     * Returns a copy of this configuration with the given representation.
+     *
+     * @param isGray a flag for gray code representation
+     * @return the configuration
+     */
+    public GAConfig withGray(boolean isGray) {
+
+        if (isGray == this.isGray) {
+            return this;
+        }
+
+        return new GAConfig(popSize, maxGen, crossoverProb, mutationProb,
+                numTrials, isGray, isAliasSelection);
+    }
+
+    @Override
+    public String toString() {
+        return "  Population Size: " + popSize +
+                "\n  Generations: " + maxGen +
+                "\n  Crossover Probability: " + crossoverProb +
+                "\n  Mutation Probability: " + mutationProb +
+                "\n  Trials: " + numTrials +
+                "\n  Gray Code: " + isGray +
+                "\n  Alias Selection: " + isAliasSelection;
+    }
+
+
+/*============================ Getters and Setters ===========================*/
+
+    /**
+     * @return the population size
+     */
+    public int getPopSize() {
+        return popSize;
+    }
+
+    /**
+     * @return the number of generations
+     */
+    public int getMaxGen() {
+        return maxGen;
+    }
+
+    /**
+     * @return the crossover probability
+     */
+    public float getCrossoverProb() {
+        return crossoverProb;
+    }
+
+    /**
+     * @return the mutation probability
+     */
+    public float getMutationProb() {
+        return mutationProb;
+    }
+
+    /**
+     * @return the number of trials
+     */
+    public int getNumTrials() {
+        return numTrials;
+    }
+
+    /**
+     * @return the isGray
+     */
+    public boolean isGray() {
+        return isGray;
+    }
+
+    /**
+     * @return the isAliasSelection
+     */
+    public boolean isAliasSelection() {
+        return isAliasSelection;
+    }
+}
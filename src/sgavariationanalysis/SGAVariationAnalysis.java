@@ -4,16 +4,26 @@
  */
 package sgavariationanalysis;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import sgavariationanalysis.binary.BinaryPopulation;
 import sgavariationanalysis.binary.BinaryIndividual;
+import sgavariationanalysis.cache.FitnessCache;
 import sgavariationanalysis.continuous.ContinuousIndividual;
 import sgavariationanalysis.continuous.ContinuousPopulation;
+import sgavariationanalysis.evaluation.ParallelEvaluator;
 import sgavariationanalysis.gatestfunction.GATestFunction;
 import sgavariationanalysis.gatestfunction.Function1;
 import sgavariationanalysis.gatestfunction.Function2;
 import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.random.RandomStream;
 
 
 public class SGAVariationAnalysis {
@@ -23,11 +33,30 @@ public class SGAVariationAnalysis {
     public static final float CROSSOVER_PROB = 0.8f;
     public static final float MUTATION_PROB = 0.01f;
     public static final int NUM_TRIALS = 100;
-    public static final Random RAND = new Random(System.currentTimeMillis());
+    public static final int NUM_THREADS = 
+            Runtime.getRuntime().availableProcessors();
+    public static final long SEED = System.currentTimeMillis();
+    public static final RandomStream RAND = new RandomStream(SEED);
     public static final boolean IS_GRAY = false;
+    public static final boolean IS_ALIAS_SELECTION = false;
+    public static final boolean IS_FAST_MATH = false;
+    public static final boolean IS_FITNESS_CACHE = false;
+    public static final int FITNESS_CACHE_SIZE = 1 << 14;
+    public static final float FITNESS_CACHE_QUANTUM = 0.0f;
+    public static final GAConfig CONFIG = new GAConfig(POP_SIZE, MAX_GEN, 
+            CROSSOVER_PROB, MUTATION_PROB, NUM_TRIALS, IS_GRAY, 
+            IS_ALIAS_SELECTION);
+    public static final int EVAL_GRAIN_SIZE = 64;
+    public static final ParallelEvaluator EVALUATOR = 
+            new ParallelEvaluator(ForkJoinPool.commonPool(), EVAL_GRAIN_SIZE);
 
     public static void main(String[] args) {
         
+        if (args.length > 0) {
+            ExperimentMatrix.main(args);
+            return;
+        }
+        
         int welcomeSelect = welcomeSelection();
         GATestFunction functionSelect = functionSelection();
         
@@ -49,116 +78,261 @@ public class SGAVariationAnalysis {
     
     private static void runBinaryTrial(GATestFunction testFunc, boolean isGray) {
         
-        BinaryPopulation pop;
-        BinaryIndividual worstInd = null;
-        BinaryIndividual bestInd = null;
-        float totalObj = 0.0f;
-        float meanObj;
         int crossoverId = binaryCrossoverSelection();
         
-        for (int trial = 0; trial < NUM_TRIALS; trial++) {
-         
-            pop = new BinaryPopulation(testFunc, RAND, isGray, crossoverId);
-            worstInd = pop.getPopulation().get(0);
-            bestInd = pop.getPopulation().get(0);
-
-            for (int gen = 0; gen < MAX_GEN; gen++) {
-
-                for (BinaryIndividual bi : pop.getPopulation()) {
-                    
-                    if (testFunc.isMaxProblem()) {
-                        if (bi.getObjValue() > bestInd.getObjValue()) {
-                            bestInd = bi;
-                        }
-                        else if (bi.getObjValue() < worstInd.getObjValue()) {
-                            worstInd = bi;
-                        }
-                    }
-                    else {
-                        if (bi.getObjValue() < bestInd.getObjValue()) {
-                            bestInd = bi;
-                        }
-                        else if (bi.getObjValue() > worstInd.getObjValue()) {
-                            worstInd = bi;
-                        }
-                    }
-                    totalObj += bi.getObjValue();
-                }
-
-                pop.rwSelect();
-                pop.reproduce();
-            }
-            
-        }
+        FitnessCache cache = IS_FITNESS_CACHE ? 
+                FitnessCache.forBinary(testFunc, FITNESS_CACHE_SIZE) : null;
+        
+        BinaryIndividual.resetEvaluationCounters();
         
-        meanObj = totalObj / (NUM_TRIALS * MAX_GEN * POP_SIZE);
+        GAConfig config = CONFIG.withGray(isGray);
+        TrialResult<BinaryIndividual> res = runTrials(config, rand -> 
+                binaryTrial(testFunc, rand, config, crossoverId, cache),
+                testFunc.isMaxProblem());
+        
+        float meanObj = (float) (res.getTotalObj() / 
+                ((double) config.getNumTrials() * config.getMaxGen() * 
+                config.getPopSize()));
         
         System.out.println("\nTest Function:\n" + testFunc);
-        System.out.println("\nBest Individual:\n" + bestInd);
-        System.out.println("\nWorst Individual:\n" + worstInd);
+        System.out.println("\nSeed: " + SEED);
+        System.out.println("\nBest Individual:\n" + res.getBestInd());
+        System.out.println("\nWorst Individual:\n" + res.getWorstInd());
         System.out.println("\nMean Individual:\n" + 
                 "  Objective Value: " + meanObj);
         if (!testFunc.isMaxProblem()) {
             System.out.println("  Fitness transferral: " + 
                     (testFunc.getFitnessTransferral(meanObj)));
         }
+        System.out.println("\nEvaluations:\n" + 
+                "  Performed: " + BinaryIndividual.getEvaluationCount() + 
+                "\n  Avoided: " + BinaryIndividual.getEvaluationsAvoided());
+        if (cache != null) {
+            System.out.println("\nFitness Cache:\n" + cache);
+        }
     }
     
-    public static void runContinuousTrial(GATestFunction testFunc) {
-        
-        ContinuousPopulation pop;
-        ContinuousIndividual worstInd = null;
-        ContinuousIndividual bestInd = null;
-        float totalObj = 0.0f;
-        float meanObj;
-        int crossoverId = continuousCrossoverSelection();
+    static TrialResult<BinaryIndividual> binaryTrial(
+            GATestFunction testFunc, RandomStream rand, GAConfig config, 
+            int crossoverId, FitnessCache cache) {
         
-        for (int trial = 0; trial < NUM_TRIALS; trial++) {
-         
-            pop = new ContinuousPopulation(testFunc, RAND, crossoverId);
-            worstInd = pop.getPopulation().get(0);
-            bestInd = pop.getPopulation().get(0);
-
-            for (int gen = 0; gen < MAX_GEN; gen++) {
-
-                for (ContinuousIndividual ci : pop.getPopulation()) {
-                    
-                    if (testFunc.isMaxProblem()) {
-                        if (ci.getObjValue() > bestInd.getObjValue()) {
-                            bestInd = ci;
-                        }
-                        else if (ci.getObjValue() < worstInd.getObjValue()) {
-                            worstInd = ci;
-                        }
+        BinaryPopulation pop = new BinaryPopulation(testFunc, rand, 
+                crossoverId, config, cache, EVALUATOR);
+        // The population's individuals are views onto rows that are
+        // reused, so the best and worst are kept as copies.
+        BinaryIndividual worstInd = 
+                new BinaryIndividual(pop.getPopulation().get(0));
+        BinaryIndividual bestInd = 
+                new BinaryIndividual(pop.getPopulation().get(0));
+        float bestObj = bestInd.getObjValue();
+        float worstObj = worstInd.getObjValue();
+        double totalObj = 0.0;
+
+        for (int gen = 0; gen < config.getMaxGen(); gen++) {
+
+            float[] objValues = pop.getObjValues();
+
+            for (int i = 0; i < objValues.length; i++) {
+
+                float obj = objValues[i];
+
+                if (testFunc.isMaxProblem()) {
+                    if (obj > bestObj) {
+                        bestObj = obj;
+                        bestInd = new BinaryIndividual(
+                                pop.getPopulation().get(i));
                     }
-                    else {
-                        if (ci.getObjValue() < bestInd.getObjValue()) {
-                            bestInd = ci;
-                        }
-                        else if (ci.getObjValue() > worstInd.getObjValue()) {
-                            worstInd = ci;
-                        }
+                    else if (obj < worstObj) {
+                        worstObj = obj;
+                        worstInd = new BinaryIndividual(
+                                pop.getPopulation().get(i));
                     }
-                    totalObj += ci.getObjValue();
                 }
-
-                pop.rwSelect();
-                pop.reproduce();
+                else {
+                    if (obj < bestObj) {
+                        bestObj = obj;
+                        bestInd = new BinaryIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                    else if (obj > worstObj) {
+                        worstObj = obj;
+                        worstInd = new BinaryIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                }
+                totalObj += obj;
             }
-            
+
+            pop.rwSelect();
+            pop.reproduce();
         }
         
-        meanObj = totalObj / (NUM_TRIALS * MAX_GEN * POP_SIZE);
+        return new TrialResult<>(bestInd, bestObj, worstInd, worstObj, 
+                totalObj);
+    }
+    
+    public static void runContinuousTrial(GATestFunction testFunc) {
+        
+        int crossoverId = continuousCrossoverSelection();
+        
+        FitnessCache cache = IS_FITNESS_CACHE ? 
+                FitnessCache.forContinuous(testFunc, FITNESS_CACHE_SIZE, 
+                        FITNESS_CACHE_QUANTUM) : null;
+        
+        ContinuousIndividual.resetEvaluationCounters();
+        
+        TrialResult<ContinuousIndividual> res = runTrials(CONFIG, rand -> 
+                continuousTrial(testFunc, rand, CONFIG, crossoverId, cache),
+                testFunc.isMaxProblem());
+        
+        float meanObj = (float) (res.getTotalObj() / 
+                ((double) CONFIG.getNumTrials() * CONFIG.getMaxGen() * 
+                CONFIG.getPopSize()));
         
         System.out.println("\nTest Function:\n" + testFunc);
-        System.out.println("\nBest Individual:\n" + bestInd);
-        System.out.println("\nWorst Individual:\n" + worstInd);
+        System.out.println("\nSeed: " + SEED);
+        System.out.println("\nBest Individual:\n" + res.getBestInd());
+        System.out.println("\nWorst Individual:\n" + res.getWorstInd());
         System.out.println("\nMean Individual:\n" + 
                 "  Objective Value: " + meanObj);
         if (!testFunc.isMaxProblem()) {
             System.out.println("  Fitness transferral: " + 
                     (testFunc.getFitnessTransferral(meanObj)));
         }
+        System.out.println("\nEvaluations:\n" + 
+                "  Performed: " + ContinuousIndividual.getEvaluationCount() + 
+                "\n  Avoided: " + ContinuousIndividual.getEvaluationsAvoided());
+        if (cache != null) {
+            System.out.println("\nFitness Cache:\n" + cache);
+        }
+    }
+    
+    static TrialResult<ContinuousIndividual> continuousTrial(
+            GATestFunction testFunc, RandomStream rand, GAConfig config, 
+            int crossoverId, FitnessCache cache) {
+        
+        ContinuousPopulation pop = new ContinuousPopulation(testFunc, rand, 
+                crossoverId, config, cache, EVALUATOR);
+        // The population's individuals are views onto rows that are
+        // reused, so the best and worst are kept as copies.
+        ContinuousIndividual worstInd = 
+                new ContinuousIndividual(pop.getPopulation().get(0));
+        ContinuousIndividual bestInd = 
+                new ContinuousIndividual(pop.getPopulation().get(0));
+        float bestObj = bestInd.getObjValue();
+        float worstObj = worstInd.getObjValue();
+        double totalObj = 0.0;
+
+        for (int gen = 0; gen < config.getMaxGen(); gen++) {
+
+            float[] objValues = pop.getObjValues();
+
+            for (int i = 0; i < objValues.length; i++) {
+
+                float obj = objValues[i];
+
+                if (testFunc.isMaxProblem()) {
+                    if (obj > bestObj) {
+                        bestObj = obj;
+                        bestInd = new ContinuousIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                    else if (obj < worstObj) {
+                        worstObj = obj;
+                        worstInd = new ContinuousIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                }
+                else {
+                    if (obj < bestObj) {
+                        bestObj = obj;
+                        bestInd = new ContinuousIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                    else if (obj > worstObj) {
+                        worstObj = obj;
+                        worstInd = new ContinuousIndividual(
+                                pop.getPopulation().get(i));
+                    }
+                }
+                totalObj += obj;
+            }
+
+            pop.rwSelect();
+            pop.reproduce();
+        }
+        
+        return new TrialResult<>(bestInd, bestObj, worstInd, worstObj, 
+                totalObj);
+    }
+    
+    /**
+     * Runs the configured number of independent trials on a pool of 
+     * NUM_THREADS threads and combines their results, with streams split
+     * from RAND.
+     * 
+     * @param <T> the type of individual
+     * @param config the configuration of the run
+     * @param trial the trial to run, given the trial's stream
+     * @param isMaxProblem a flag for a maximum problem
+     * @return the combined results of every trial
+     */
+    private static <T> TrialResult<T> runTrials(GAConfig config,
+            Function<RandomStream, TrialResult<T>> trial, 
+            boolean isMaxProblem) {
+        
+        return runTrials(RAND, NUM_THREADS, config, trial, isMaxProblem);
+    }
+    
+    /**
+     * Runs the configured number of independent trials on a pool of the
+     * given number of threads and combines their results. Each trial is 
+     * given its own stream, split from the root in trial order, and the 
+     * results are merged in trial order, so a run is reproduced exactly by
+     * the root's seed, whatever the number of threads or the order in 
+     * which the trials finish.
+     * 
+     * @param <T> the type of individual
+     * @param root the stream the trials' streams are split from
+     * @param numThreads the number of threads to run the trials on
+     * @param config the configuration of the run
+     * @param trial the trial to run, given the trial's stream
+     * @param isMaxProblem a flag for a maximum problem
+     * @return the combined results of every trial
+     */
+    static <T> TrialResult<T> runTrials(RandomStream root, int numThreads,
+            GAConfig config, Function<RandomStream, TrialResult<T>> trial, 
+            boolean isMaxProblem) {
+        
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        
+        try {
+            int numTrials = config.getNumTrials();
+            List<Future<TrialResult<T>>> futures = new ArrayList<>(numTrials);
+            for (int i = 0; i < numTrials; i++) {
+                RandomStream rand = root.split();
+                futures.add(executor.submit(() -> trial.apply(rand)));
+            }
+            
+            TrialResult<T> res = futures.get(0).get();
+            for (int i = 1; i < numTrials; i++) {
+                res = res.merge(futures.get(i).get(), isMaxProblem);
+            }
+            
+            return res;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("SGAVariationAnalysis: "
+                    + "Interrupted while running trials.", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("SGAVariationAnalysis: "
+                    + "Trial failed.", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
     }
     
     public static int welcomeSelection() {
@@ -207,7 +381,6 @@ public class SGAVariationAnalysis {
     
     public static GATestFunction functionSelection() {
         
-        GATestFunction res;
         Scanner s = new Scanner(System.in);
         
         System.out.println("\n1. Function1");
@@ -215,18 +388,25 @@ public class SGAVariationAnalysis {
         System.out.println("3. Function3");
         System.out.print("\nPlease choose a test function: ");
         
-        switch(s.nextInt()) {
+        return createFunction(s.nextInt());
+    }
+    
+    public static GATestFunction createFunction(int functionId) {
+        
+        GATestFunction res;
+        
+        switch(functionId) {
             case 1:
-                res = new Function1();
+                res = new Function1(IS_FAST_MATH);
                 break;
             case 2:
                 res = new Function2();
                 break;
             case 3:
-                res = new Function3();
+                res = new Function3(IS_FAST_MATH);
                 break;
             default:
-                res = new Function1();
+                res = new Function1(IS_FAST_MATH);
         }
         
         return res;
@@ -0,0 +1,126 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   TrialResult.java
+ */
+package sgavariationanalysis;
+
+/**
+ * The results of one or more trials of a GA: the best and worst
+ * individuals seen, their objective values, and the total of the objective
+ * values of every individual of every generation. The results of separate
+ * trials are combined with merge, in trial order, so the combined results
+ * do not depend on the order in which the trials finished. The total is
+ * kept in double, as a float total stops growing long before the
+ * objective values of a large run are summed.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ * @param <T> the type of individual
+ */
+public final class TrialResult<T> {
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The best individual, a copy independent of any population */
+    private final T bestInd;
+
+    /* The objective value of the best individual */
+    private final float bestObj;
+
+    /* The worst individual, a copy independent of any population */
+    private final T worstInd;
+
+    /* The objective value of the worst individual */
+    private final float worstObj;
+
+    /* The total of the objective values of every individual */
+    private final double totalObj;
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates the results of a trial.
+     *
+     * @param bestInd the best individual
+     * @param bestObj the objective value of the best individual
+     * @param worstInd the worst individual
+     * @param worstObj the objective value of the worst individual
+     * @param totalObj the total of the objective values
+     */
+    public TrialResult(T bestInd, float bestObj, T worstInd, float worstObj,
+            double totalObj) {
+
+        this.bestInd = bestInd;
+        this.bestObj = bestObj;
+        this.worstInd = worstInd;
+        this.worstObj = worstObj;
+        this.totalObj = totalObj;
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+    /**
+     * Combines these results with those of a later trial. The best and
+     * worst individuals of the later trial replace these only if they are
+     * strictly better or worse, so ties keep the earlier trial's.
+     *
+     * @param later the results of the later trial
+     * @param isMaxProblem a flag for a maximum problem
+     * @return the combined results
+     */
+    public TrialResult<T> merge(TrialResult<T> later, boolean isMaxProblem) {
+
+        boolean isBetter = isMaxProblem ?
+                later.bestObj > bestObj : later.bestObj < bestObj;
+        boolean isWorse = isMaxProblem ?
+                later.worstObj < worstObj : later.worstObj > worstObj;
+
+        return new TrialResult<>(
+                isBetter ? later.bestInd : bestInd,
+                isBetter ? later.bestObj : bestObj,
+                isWorse ? later.worstInd : worstInd,
+                isWorse ? later.worstObj : worstObj,
+                totalObj + later.totalObj);
+    }
+
+
+/*============================ Getters and Setters ===========================*/
+
+    /**
+     * @return the best individual
+     */
+    public T getBestInd() {
+        return bestInd;
+    }
+
+    /**
+     * @return the objective value of the best individual
+     */
+    public float getBestObj() {
+        return bestObj;
+    }
+
+    /**
+     * @return the worst individual
+     */
+    public T getWorstInd() {
+        return worstInd;
+    }
+
+    /**
+     * @return the objective value of the worst individual
+     */
+    public float getWorstObj() {
+        return worstObj;
+    }
+
+    /**
+     * @return the total of the objective values
+     */
+    public double getTotalObj() {
+        return totalObj;
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   BinaryDecoder.java
+ */
+package sgavariationanalysis.binary;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * Decodes packed binary or gray code chromosomes into real values for a
+ * particular test function. The integer value of each variable is read
+ * directly from the packed words, gray code is decoded with a prefix-XOR
+ * in log2(64) steps, and the integer is mapped onto the search space
+ * using a scale and offset precomputed from the function's bounds.
+ *
+ * If the test function is separable and a variable has at most 2^16
+ * integer values, each term of the function is tabulated over every
+ * integer value of a variable, and a chromosome is evaluated by decoding
+ * the integers, gathering their terms from the tables and summing them.
+ * The tables are built once per test function and shared by its decoders.
+ *
+ * A decoder is immutable and is shared by every individual descended from
+ * the same root individual.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class BinaryDecoder {
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The test function the decoder was built for */
+    private final GATestFunction testFunction;
+
+    /* A flag for indicating the use of gray code */
+    private final boolean isGray;
+
+    /* The number of variables in a chromosome */
+    private final int numVars;
+
+    /* The number of genes used to represent each variable */
+    private final int genesPerVar;
+
+    /* The distance in the search space between adjacent integer values */
+    private final float scale;
+
+    /* The real value of the integer value zero, the lower bound */
+    private final float offset;
+
+    /* The term tables indexed by term and integer value, or null */
+    private final float[][] termTables;
+
+    /* The largest number of genes per variable that is tabulated */
+    private static final int MAX_TABLE_GENES = 16;
+
+    /* The term tables of each test function, built on first use */
+    private static final Map<GATestFunction, float[][]> TABLES =
+            new WeakHashMap<>();
+
+    /* Per-thread scratch arrays for the term sums */
+    private static final ThreadLocal<float[]> SUMS =
+            ThreadLocal.withInitial(() -> new float[0]);
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates a decoder for chromosomes of the given test function.
+     *
+     * @param testFunction the test function
+     * @param isGray a flag for gray code representation
+     */
+    public BinaryDecoder(GATestFunction testFunction, boolean isGray) {
+
+        if (testFunction.getGenesPerVar() < 1 ||
+                testFunction.getGenesPerVar() > BitVectors.WORD_SIZE) {
+            throw new IllegalArgumentException("BinaryDecoder: genes per "
+                    + "variable must be between 1 and 64.");
+        }
+
+        this.testFunction = testFunction;
+        this.isGray = isGray;
+        numVars = testFunction.getNumVars();
+        genesPerVar = testFunction.getGenesPerVar();
+
+        float xLower = testFunction.getXLowerBound();
+        float xUpper = testFunction.getXUpperBound();
+        // Dividing by a power of two is exact, so value * scale rounds the
+        // same way as value / 2^genesPerVar * (xUpper - xLower).
+        scale = (xUpper - xLower) / (float) Math.scalb(1.0, genesPerVar);
+        offset = xLower;
+        termTables = lookupTermTables(testFunction);
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+
+    /**
+     * Converts a gray code value to its binary value. Each binary bit is the
+     * XOR of the gray bits at and above it, computed as a prefix-XOR in six
+     * shift steps.
+     *
+     * @param gray the gray code value
+     * @return the binary value
+     */
+    public static long grayToBinary(long gray) {
+
+        gray ^= gray >>> 1;
+        gray ^= gray >>> 2;
+        gray ^= gray >>> 4;
+        gray ^= gray >>> 8;
+        gray ^= gray >>> 16;
+        gray ^= gray >>> 32;
+
+        return gray;
+    }
+
+    /**
+     * Returns the raw genes of the given variable as an integer, least
+     * significant gene first, without any gray decoding.
+     *
+     * @param words the packed chromosome
+     * @param var the index of the variable
+     * @return the genes of the variable
+     */
+    public long extract(long[] words, int var) {
+        return extract(words, 0, var);
+    }
+
+    /**
+     * Returns the raw genes of the given variable of a chromosome stored
+     * at a word offset within a larger array, such as one row of a
+     * population's genotype matrix.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param var the index of the variable
+     * @return the genes of the variable
+     */
+    public long extract(long[] words, int off, int var) {
+        return BitVectors.readBits(words, off, var * genesPerVar,
+                genesPerVar);
+    }
+
+    /**
+     * Returns the integer value of the given variable, decoding gray code
+     * if the decoder uses it.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param var the index of the variable
+     * @return the integer value of the variable
+     */
+    public long decodeInteger(long[] words, int off, int var) {
+
+        long bits = extract(words, off, var);
+
+        return isGray ? grayToBinary(bits) : bits;
+    }
+
+    /**
+     * Maps an integer value of a variable onto the search space.
+     *
+     * @param value the integer value
+     * @return the real value
+     */
+    public float toReal(long value) {
+        return (float) value * scale + offset;
+    }
+
+    /**
+     * Returns the real value of the given variable.
+     *
+     * @param words the packed chromosome
+     * @param var the index of the variable
+     * @return the real value of the variable
+     */
+    public float decode(long[] words, int var) {
+        return decode(words, 0, var);
+    }
+
+    /**
+     * Returns the real value of the given variable.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param var the index of the variable
+     * @return the real value of the variable
+     */
+    public float decode(long[] words, int off, int var) {
+        return toReal(decodeInteger(words, off, var));
+    }
+
+    /**
+     * Decodes every variable of the chromosome into the given array.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param reals the array to store the real values in
+     */
+    public void decode(long[] words, int off, float[] reals) {
+
+        for (int var = 0; var < numVars; var++) {
+            reals[var] = decode(words, off, var);
+        }
+    }
+
+    /**
+     * Decodes every variable of the chromosome into the given array and
+     * returns the fitness value from the term tables. The terms are summed
+     * in variable order, so the result is identical to that of the test
+     * function's calculateFitness.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param reals the array to store the real values in
+     * @return the fitness value
+     * @throws IllegalStateException if the decoder has no term tables
+     */
+    public float evaluate(long[] words, int off, float[] reals) {
+
+        if (termTables == null) {
+            throw new IllegalStateException("BinaryDecoder: No term "
+                    + "tables.");
+        }
+
+        int numTerms = termTables.length;
+        float[] sums = SUMS.get();
+        if (sums.length < numTerms) {
+            sums = new float[numTerms];
+            SUMS.set(sums);
+        }
+        for (int t = 0; t < numTerms; t++) {
+            sums[t] = 0.0f;
+        }
+
+        for (int var = 0; var < numVars; var++) {
+            int value = (int) decodeInteger(words, off, var);
+            reals[var] = toReal(value);
+            for (int t = 0; t < numTerms; t++) {
+                sums[t] += termTables[t][value];
+            }
+        }
+
+        return testFunction.combine(sums, numVars);
+    }
+
+
+/*============================== Private Methods =============================*/
+
+
+    /**
+     * Returns the term tables of the given test function, building them on
+     * first use, or null if the function is not separable or its variables
+     * have too many integer values to tabulate.
+     *
+     * @param testFunction the test function
+     * @return the term tables, or null
+     */
+    private static float[][] lookupTermTables(GATestFunction testFunction) {
+
+        int numTerms = testFunction.getNumTerms();
+        int genes = testFunction.getGenesPerVar();
+        if (numTerms < 1 || genes > MAX_TABLE_GENES) {
+            return null;
+        }
+
+        synchronized (TABLES) {
+            float[][] tables = TABLES.get(testFunction);
+            if (tables == null) {
+                tables = buildTermTables(testFunction);
+                TABLES.put(testFunction, tables);
+            }
+            return tables;
+        }
+    }
+
+    /**
+     * Tabulates every term of the test function over every integer value
+     * of a variable. The real value of each integer is computed exactly as
+     * toReal computes it.
+     *
+     * @param testFunction the test function
+     * @return the term tables indexed by term and integer value
+     */
+    private static float[][] buildTermTables(GATestFunction testFunction) {
+
+        int numTerms = testFunction.getNumTerms();
+        int size = 1 << testFunction.getGenesPerVar();
+        float xLower = testFunction.getXLowerBound();
+        float xUpper = testFunction.getXUpperBound();
+        float scale = (xUpper - xLower) / (float) size;
+
+        float[][] tables = new float[numTerms][size];
+        for (int value = 0; value < size; value++) {
+            float real = (float) value * scale + xLower;
+            for (int t = 0; t < numTerms; t++) {
+                tables[t][value] = testFunction.term(t, real);
+            }
+        }
+
+        return tables;
+    }
+
+
+/*============================ Getters and Setters ===========================*/
+
+
+    /**
+     * @return the test function
+     */
+    public GATestFunction getTestFunction() {
+        return testFunction;
+    }
+
+    /**
+     * @return the isGray
+     */
+    public boolean isGray() {
+        return isGray;
+    }
+
+    /**
+     * @return the number of variables
+     */
+    public int getNumVars() {
+        return numVars;
+    }
+
+    /**
+     * @return the number of genes per variable
+     */
+    public int getGenesPerVar() {
+        return genesPerVar;
+    }
+
+    /**
+     * @return true if the decoder evaluates chromosomes from term tables
+     */
+    public boolean hasTermTables() {
+        return termTables != null;
+    }
+}
@@ -4,9 +4,13 @@
  */
 package sgavariationanalysis.binary;
 
+import sgavariationanalysis.cache.FitnessCache;
 import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -17,21 +21,45 @@ import java.util.stream.Collectors;
 public class BinaryIndividual {
 
     
+/*============================== Static Variables ============================*/
+
+    
+    /* The number of times an evaluation of an individual was requested */
+    private static final LongAdder EVAL_REQUESTS = new LongAdder();
+    
+    /* The number of evaluations of individuals actually performed */
+    private static final LongAdder EVALUATIONS = new LongAdder();
+    
+    
 /*============================== Member Variables ============================*/
 
     
     /**
-     * The location, a list of lists of boolean values representing the genes 
-     * of the chromosomes in binary format (genotype). Each boolean represents
-     * a gene and each list represents a separate variable. 
+     * The location, a packed bit-vector representing the genes of the 
+     * chromosome in binary format (genotype). Each bit represents a gene.
+     * The genes of variable v occupy the loci v * genesPerVar through
+     * (v + 1) * genesPerVar - 1, least significant gene first. The array
+     * may be shared with other individuals, as the genotype matrix of a
+     * population is, in which case the chromosome starts at offset.
      */
-    private final ArrayList<ArrayList<Boolean>> chromosome;
+    private final long[] chromosome;
+    
+    /**
+     * The index of the first word of the chromosome within its array.
+     */
+    private final int offset;
+    
+    /**
+     * The total number of genes in the chromosome.
+     */
+    private final int numGenes;
 
     /**
      * The location, the real number representation the chromosome 
-     * (phenotype). Each float represents a separate variable.
+     * (phenotype). Each float represents a separate variable. The array is
+     * refilled in place whenever the chromosome is decoded.
      */
-    private ArrayList<Float> realValues;
+    private final float[] realValues;
 
     /**
      * The quality, the objective value, a float representing the evaluation 
@@ -45,6 +73,13 @@ public class BinaryIndividual {
      * fitness.
      */
     private float fitTransValue;
+    
+    /**
+     * A flag indicating that the chromosome has changed since the values
+     * derived from it were last computed. The values are recomputed the
+     * next time one of them is read.
+     */
+    private boolean stale;
 
     /**
      * The relative fitness of the individual, the fitness (objective value) 
@@ -58,21 +93,30 @@ public class BinaryIndividual {
     private final GATestFunction testFunction;
     
     /**
-     * A flag for indicating the use of gray code
+     * The decoder mapping the chromosome onto real values, shared with
+     * the individual's ancestors and descendants
+     */
+    private final BinaryDecoder decoder;
+    
+    /**
+     * The cache of objective values keyed by packed chromosome, shared 
+     * with the individual's ancestors and descendants, or null for none
      */
-    private final boolean isGray;
+    private final FitnessCache cache;
     
     /**
-     * The Random object to use for prn generation
+     * The stream to use for prn generation, shared with the individual's
+     * ancestors and descendants
      */
-    private final Random rand;
+    private final RandomStream rand;
     
  
 /*================================ Constructors ==============================*/
 
     /**
      * Creates an individual with num variables of len length, in bits, and
-     * randomly generates a chromosome.
+     * randomly generates a chromosome. The individual and its descendants
+     * draw from a stream seeded from the given generator.
      * 
      * @param testFunction the test function 
      * @param rand the pseudo-random number generator
@@ -81,21 +125,33 @@ public class BinaryIndividual {
     public BinaryIndividual(GATestFunction testFunction, Random rand,
             boolean isGray) {
         
-        int num = testFunction.getNumVars();
-        int len = testFunction.getGenesPerVar();
-        chromosome = new ArrayList<>();
-        for (int vars = 0; vars < num; vars++) {
-            chromosome.add(vars, new ArrayList<>());
-            for (int i = 0; i < len; i++) {
-                chromosome.get(vars).add(i, Boolean.FALSE);
-            }
-          
-        }
+        this(testFunction, new RandomStream(rand.nextLong()), isGray, null);
+    }
+    
+    /**
+     * Creates an individual with num variables of len length, in bits, and
+     * randomly generates a chromosome. The individual and its descendants 
+     * look up their objective values in the given cache before evaluating
+     * the test function.
+     * 
+     * @param testFunction the test function 
+     * @param rand the pseudo-random number stream
+     * @param isGray a flag for gray code representation
+     * @param cache the fitness cache, or null for none
+     */
+    public BinaryIndividual(GATestFunction testFunction, RandomStream rand,
+            boolean isGray, FitnessCache cache) {
+        
+        numGenes = testFunction.getNumVars() * testFunction.getGenesPerVar();
+        chromosome = new long[BitVectors.numWords(numGenes)];
+        offset = 0;
         this.testFunction = testFunction;
         this.rand = rand;
-        this.isGray = isGray;
+        this.decoder = new BinaryDecoder(testFunction, isGray);
+        this.cache = cache;
+        realValues = new float[testFunction.getNumVars()];
         generateRandomChromosome();
-        updateValues();
+        invalidate();
         relFitness = 0.0f;
     }
     
@@ -108,21 +164,20 @@ public class BinaryIndividual {
      */
     public BinaryIndividual(ArrayList<Boolean> chromosome,
             BinaryIndividual parent) {
-        int num = parent.getTestFunction().getNumVars();
-        int len = parent.getTestFunction().getGenesPerVar();
-        this.chromosome = new ArrayList<>();
-        for (int vars = 0; vars < num; vars++) {
-            this.chromosome.add(vars, new ArrayList<>());
-            for (int i = 0; i < len; i++) {
-                this.chromosome.get(vars).add(i, 
-                        chromosome.get(vars * num + i) ? 
-                        Boolean.TRUE : Boolean.FALSE);
+        numGenes = parent.getNumGenes();
+        this.chromosome = new long[BitVectors.numWords(numGenes)];
+        offset = 0;
+        for (int locus = 0; locus < numGenes; locus++) {
+            if (chromosome.get(locus)) {
+                BitVectors.set(this.chromosome, 0, locus, true);
             }
         }
         this.testFunction = parent.getTestFunction();
         this.rand = parent.getRand();
-        this.isGray = parent.isGray();
-        updateValues();
+        this.decoder = parent.getDecoder();
+        this.cache = parent.cache;
+        realValues = new float[testFunction.getNumVars()];
+        invalidate();
         relFitness = 0;
     }
     
@@ -133,21 +188,50 @@ public class BinaryIndividual {
      */
     public BinaryIndividual(BinaryIndividual toCopy) {
         
-        chromosome = new ArrayList<>();
-        for (int vars = 0; vars < toCopy.getNumVars(); vars++) {
-            chromosome.add(vars, new ArrayList<>());
-            for (int i = 0; i < toCopy.getGenesPerVar(); i++) {
-                chromosome.get(vars).add(i, 
-                        toCopy.getChromosome()
-                                .get(vars * toCopy.getNumVars() + i) ? 
-                                Boolean.TRUE : Boolean.FALSE
-                );
-            }
-        }
-        this.testFunction = toCopy.getTestFunction();
-        this.rand = toCopy.getRand();
-        this.isGray = toCopy.isGray();
-        updateValues();
+        this(toCopy.copyWords(), toCopy);
+        copyValues(toCopy);
+        relFitness = toCopy.relFitness;
+    }
+    
+    /**
+     * Creates an individual that takes ownership of the given packed 
+     * chromosome. The individual's other properties are initialized using 
+     * the parent values. The array must not be modified by the caller 
+     * afterwards.
+     * 
+     * @param words the packed chromosome
+     * @param parent the parent individual to inherit properties from
+     */
+    BinaryIndividual(long[] words, BinaryIndividual parent) {
+        
+        this(words, 0, parent);
+        invalidate();
+    }
+    
+    /**
+     * Creates an individual whose chromosome is the row of a genotype 
+     * matrix starting at the given word offset. The individual is a view, 
+     * so changes made to the row through it, or to the matrix directly, 
+     * are seen by both. The individual's other properties are initialized 
+     * using the prototype values. The row is treated as empty until it is
+     * filled with {@link #copyFrom(BinaryIndividual)} or 
+     * {@link #randomize()}, so no evaluation is requested for it here.
+     * 
+     * @param matrix the array holding the chromosome
+     * @param offset the word offset of the chromosome
+     * @param prototype the individual to inherit properties from
+     */
+    BinaryIndividual(long[] matrix, int offset, BinaryIndividual prototype) {
+        
+        numGenes = prototype.getNumGenes();
+        chromosome = matrix;
+        this.offset = offset;
+        this.testFunction = prototype.getTestFunction();
+        this.rand = prototype.getRand();
+        this.decoder = prototype.getDecoder();
+        this.cache = prototype.cache;
+        realValues = new float[testFunction.getNumVars()];
+        stale = true;
         relFitness = 0;
     }
     
@@ -160,59 +244,121 @@ public class BinaryIndividual {
     private void generateRandomChromosome() {
         
         
-        for (ArrayList<Boolean> var : chromosome) {
-            for (int i = 0; i < getGenesPerVar(); i++) {
-                var.set(i, rand.nextBoolean());
-            }
+        int last = offset + BitVectors.numWords(numGenes) - 1;
+        for (int w = offset; w <= last; w++) {
+            chromosome[w] = rand.nextLong();
         }
+        chromosome[last] &= BitVectors.tailMask(numGenes);
     }
 
     /**
      * Updates the real and objective values associated with this
-     * individual's chromosome.
+     * individual's chromosome. The objective value is taken from the 
+     * fitness cache when the chromosome is found there.
      */
     private void updateValues() {
-        realValues = chromoToReal();
-        objValue = getTestFunction().calculateFitness(realValues);
+        objValue = cache == null ? Float.NaN : cache.get(chromosome, offset);
+        if (!Float.isNaN(objValue)) {
+            chromoToReal();
+        }
+        else {
+            if (decoder.hasTermTables()) {
+                objValue = decoder.evaluate(chromosome, offset, realValues);
+            }
+            else {
+                chromoToReal();
+                objValue = getTestFunction().calculateFitness(realValues, 0, 
+                        realValues.length);
+            }
+            if (cache != null) {
+                cache.put(chromosome, offset, objValue);
+            }
+            EVALUATIONS.increment();
+        }
         fitTransValue = getTestFunction().getFitnessTransferral(objValue);
+        stale = false;
     }
     
     /**
-     * Returns the real value number representation of this individual
-     * with the chromosome being represented as either binary or gray code
-     * according to the program flag.
+     * Marks the real and objective values as stale so they are recomputed
+     * on their next access.
+     */
+    private void invalidate() {
+        stale = true;
+        EVAL_REQUESTS.increment();
+    }
+    
+    /**
+     * Recomputes the real and objective values if they are stale.
+     */
+    private void evaluateIfStale() {
+        if (stale) {
+            updateValues();
+        }
+    }
+    
+    /**
+     * Takes the real and objective values from the given individual, which
+     * must have an identical chromosome, if they are up to date.
      * 
-     * @return The real value number
+     * @param source the individual to copy the values from
      */
-    private ArrayList<Float> chromoToReal() {
-        
-        ArrayList<Float> res = new ArrayList<>();
-        float xLower = testFunction.getXLowerBound();
-        float xUpper = testFunction.getXUpperBound();
-        
-        for (int vars = 0; vars < getNumVars(); vars++) {
-            long binary = 0;
-            for (int i = 0; i < getGenesPerVar(); i++) {
-                binary += chromosome.get(vars).get(i) ? Math.pow(2, i) : 0;
-            }
-            
-            if (isGray) {
-                binary = (binary >> 1) ^ binary;
-            }
-            
-            res.add(vars, (float) binary / 
-                    (float) Math.pow(2, chromosome.get(vars).size()) * 
-                    (xUpper - xLower) + xLower
-            );
+    private void copyValues(BinaryIndividual source) {
+        if (!source.stale) {
+            System.arraycopy(source.realValues, 0, realValues, 0, 
+                    realValues.length);
+            objValue = source.objValue;
+            fitTransValue = source.fitTransValue;
+            stale = false;
         }
+    }
+    
+    /**
+     * Refills the real values of this individual from the chromosome, 
+     * with the chromosome being represented as either binary or gray code
+     * according to the program flag.
+     */
+    private void chromoToReal() {
         
-        return res;
+        decoder.decode(chromosome, offset, realValues);
     }
     
     
 /*============================ Getters and Setters ===========================*/
 
     
+    /**
+     * Returns the number of evaluations of the test function performed for
+     * binary individuals. Values found in the fitness cache are not 
+     * counted.
+     * 
+     * @return the number of evaluations of binary individuals performed
+     */
+    public static long getEvaluationCount() {
+        return EVALUATIONS.sum();
+    }
+    
+    /**
+     * Returns the number of evaluations of binary individuals that were 
+     * requested by a change to, or copy of, a chromosome but never 
+     * performed, either because the values were not read before the next
+     * change, because they were copied from an up to date individual or 
+     * because they were found in the fitness cache.
+     * 
+     * @return the number of evaluations avoided
+     */
+    public static long getEvaluationsAvoided() {
+        return EVAL_REQUESTS.sum() - EVALUATIONS.sum();
+    }
+    
+    /**
+     * Resets the evaluation counters.
+     */
+    public static void resetEvaluationCounters() {
+        EVAL_REQUESTS.reset();
+        EVALUATIONS.reset();
+    }
+    
     /**
      * @return the number of variables represented in the chromosome
      */
@@ -227,13 +373,19 @@ public class BinaryIndividual {
         return getTestFunction().getGenesPerVar();
     }
     
+    /**
+     * @return the total number of genes, in bits, in the chromosome
+     */
+    public int getNumGenes() {
+        return numGenes;
+    }
+    
     /**
      * @param locus the location of the gene
      * @return the gene
      */
     public Boolean getGene(int locus) {
-        return chromosome.get(locus / (getNumVars() * getGenesPerVar()))
-                .get(locus % getGenesPerVar());
+        return BitVectors.get(chromosome, offset, locus);
     }
     
     /**
@@ -242,9 +394,8 @@ public class BinaryIndividual {
      */
     public void setGene(int locus, Boolean gene) {
         
-        chromosome.get(locus / (getNumVars() * getGenesPerVar()))
-                .set(locus % getGenesPerVar(), gene);
-        updateValues();
+        BitVectors.set(chromosome, offset, locus, gene);
+        invalidate();
     }
     
     /**
@@ -254,30 +405,94 @@ public class BinaryIndividual {
      */
     public ArrayList<Boolean> getChromosome() {
         
-        ArrayList<Boolean> res = new ArrayList<>();
+        ArrayList<Boolean> res = new ArrayList<>(numGenes);
         
-        for (int vars = 0; vars < getNumVars(); vars++) {
-            for (int i = 0; i < getGenesPerVar(); i++) {
-                res.add(vars * getNumVars() + i, 
-                        chromosome.get(vars).get(i) ? 
-                        Boolean.TRUE : Boolean.FALSE);
-            }
+        for (int locus = 0; locus < numGenes; locus++) {
+            res.add(BitVectors.get(chromosome, offset, locus));
         }
         
         return res;
     }
 
     /**
+     * Returns the array backing this individual's packed chromosome, which
+     * starts at {@link #getOffset()}. The array is not copied, so changes 
+     * made to it must be followed by a call to {@link #genotypeChanged()}.
+     * 
+     * @return the array holding the packed chromosome
+     */
+    long[] getWords() {
+        return chromosome;
+    }
+    
+    /**
+     * @return the word offset of the chromosome within its array
+     */
+    int getOffset() {
+        return offset;
+    }
+    
+    /**
+     * @return a new array holding a copy of the packed chromosome
+     */
+    long[] copyWords() {
+        return Arrays.copyOfRange(chromosome, offset, 
+                offset + BitVectors.numWords(numGenes));
+    }
+    
+    /**
+     * Overwrites the chromosome with that of the given individual, taking
+     * its real and objective values as well if they are up to date. An 
+     * evaluation still outstanding on the source moves along with the
+     * chromosome rather than being requested again.
+     * 
+     * @param source the individual to copy
+     */
+    void copyFrom(BinaryIndividual source) {
+        
+        System.arraycopy(source.chromosome, source.offset, chromosome, offset,
+                BitVectors.numWords(numGenes));
+        stale = true;
+        copyValues(source);
+    }
+    
+    /**
+     * Replaces the chromosome with a new random one.
+     */
+    void randomize() {
+        
+        generateRandomChromosome();
+        invalidate();
+    }
+    
+    /**
+     * Notifies the individual that its packed chromosome has been modified
+     * in place.
+     */
+    void genotypeChanged() {
+        invalidate();
+    }
+
+    /**
+     * Returns the real values as a new list. Evaluation reads the real 
+     * values as primitives, so the values are only boxed here.
+     * 
      * @return the realValue
      */
     public ArrayList<Float> getRealValue() {
-        return realValues;
+        evaluateIfStale();
+        ArrayList<Float> res = new ArrayList<>(realValues.length);
+        for (float real : realValues) {
+            res.add(real);
+        }
+        return res;
     }
 
     /**
      * @return the objValue
      */
     public float getObjValue() {
+        evaluateIfStale();
         return objValue;
     }
 
@@ -285,6 +500,7 @@ public class BinaryIndividual {
      * @return the fitTransValue
      */
     public float getFitTransValue() {
+        evaluateIfStale();
         return fitTransValue;
     }
 
@@ -292,6 +508,7 @@ public class BinaryIndividual {
      * @param fitTransValue the fitTransValue to set
      */
     public void setFitTransValue(float fitTransValue) {
+        evaluateIfStale();
         this.fitTransValue = fitTransValue;
     }
 
@@ -313,14 +530,17 @@ public class BinaryIndividual {
      * @return the genotype
      */
     public String getGenotype() {
-        String genotype = "";
-        for (ArrayList<Boolean> var : chromosome) {
+        StringBuilder genotype = new StringBuilder(numGenes);
+        for (int vars = 0; vars < getNumVars(); vars++) {
+            int start = vars * getGenesPerVar();
             for (int i = getGenesPerVar() - 1; i >= 0; i--) {
-                genotype += var.get(i) ? "1" : "0";
+                genotype.append(
+                        BitVectors.get(chromosome, offset, start + i) ? 
+                                '1' : '0');
             }
         }
         
-        return genotype;
+        return genotype.toString();
     }
 
     /**
@@ -334,13 +554,20 @@ public class BinaryIndividual {
      * @return the isGray
      */
     public boolean isGray() {
-        return isGray;
+        return decoder.isGray();
+    }
+    
+    /**
+     * @return the decoder
+     */
+    BinaryDecoder getDecoder() {
+        return decoder;
     }
 
     /**
      * @return the rand
      */
-    public Random getRand() {
+    public RandomStream getRand() {
         return rand;
     }
     
@@ -349,15 +576,15 @@ public class BinaryIndividual {
         
         String res = "";
         
-        res += "  Objective Value: " + objValue;
+        res += "  Objective Value: " + getObjValue();
         res += "\n  Real Values: [";
-        res += realValues.stream()
+        res += getRealValue().stream()
                 .map((value) -> "" + value)
                 .collect(Collectors.joining(", "));
         res += "]\n  Relative Fitness: " + relFitness +
                "\n  Genotype: " + getGenotype();
         if (!testFunction.isMaxProblem()) {
-            res += "\n  Fitness Transferral: " + fitTransValue;
+            res += "\n  Fitness Transferral: " + getFitTransValue();
         }
         
         return res;
@@ -6,38 +6,85 @@ package sgavariationanalysis.binary;
 
 import java.util.ArrayList;
 import java.util.Random;
+import sgavariationanalysis.GAConfig;
 import sgavariationanalysis.SGAVariationAnalysis;
+import sgavariationanalysis.cache.FitnessCache;
+import sgavariationanalysis.evaluation.ParallelEvaluator;
 import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+import sgavariationanalysis.selection.AliasRouletteWheel;
+import sgavariationanalysis.selection.CumulativeRouletteWheel;
+import sgavariationanalysis.selection.RouletteWheel;
 
 /**
- * A class representing a binary population in a GA.
+ * A class representing a binary population in a GA. The population is 
+ * stored as a structure of arrays: the chromosomes of every individual 
+ * are the rows of one genotype matrix, with numWords longs per row, and
+ * the objective, fitness transferral and relative fitness values are held 
+ * in parallel columns indexed as the population. A chromosome of 64 genes
+ * or fewer is a single long. The individuals returned by getPopulation are
+ * views onto the rows of the matrix.
  * 
  * @author Brett Crawford <brett.crawford@temple.edu>
  */
 public class BinaryPopulation {
     
     
-    private static final Random RAND = SGAVariationAnalysis.RAND;
-        
-    
 /*============================== Member Variables ============================*/
 
     
-    /* The population of individuals */
-    private final ArrayList<BinaryIndividual> population;
+    /* The number of words in each row of the genotype matrices */
+    private final int numWords;
+    
+    /* The genotype matrix of the population, one row per individual */
+    private long[] genotypes;
+    
+    /* The genotype matrix the next generation is built in before replacing
+       genotypes */
+    private long[] nextGenotypes;
+    
+    /* The population of individuals, views onto the rows of genotypes */
+    private ArrayList<BinaryIndividual> population;
     
-    /* The mating pools of individuals */
-    private final ArrayList<BinaryIndividual> matingPool;
+    /* The views onto the rows of nextGenotypes */
+    private ArrayList<BinaryIndividual> nextPopulation;
+    
+    /* The objective value of each individual, indexed as the population */
+    private final float[] objValues;
+    
+    /* The fitness transferral of each individual, indexed as the 
+       population */
+    private final float[] fitTransValues;
+    
+    /* The mating pool, the indices of the selected individuals within the
+       population. Parents are read from the population in place. */
+    private final int[] matingPool;
     
     /* The id of the crossover variation method */
     private final int crossoverId;
     
+    /* The relative fitness of each individual, indexed as the population */
+    private final float[] relFitness;
+    
+    /* The roulette wheel used for selection, rebuilt each generation */
+    private final RouletteWheel wheel;
+    
+    /* The pseudo-random number stream used for selection */
+    private final RandomStream rand;
+    
+    /* The configuration of the run */
+    private final GAConfig config;
+    
+    /* The evaluator of each generation, or null to evaluate serially */
+    private final ParallelEvaluator evaluator;
+    
      
 /*================================ Constructors ==============================*/
 
     /**
      * Creates a population using the parameters specified in the given
-     * fitness function.
+     * fitness function. The population draws from a stream seeded from 
+     * the given generator.
      * 
      * @param testFunction the fitness function to use
      * @param rand the pseudo-random number generator
@@ -47,16 +94,77 @@ public class BinaryPopulation {
     public BinaryPopulation(GATestFunction testFunction, Random rand,
             boolean isGray, int crossoverId) {
         
-        population = new ArrayList<>();
-        matingPool = new ArrayList<>();
-        this.crossoverId = crossoverId;
+        this(testFunction, new RandomStream(rand.nextLong()), isGray, 
+                crossoverId, null);
+    }
+    
+    /**
+     * Creates a population using the parameters specified in the given
+     * fitness function, whose individuals look up their objective values
+     * in the given cache before evaluating the function.
+     * 
+     * @param testFunction the fitness function to use
+     * @param rand the pseudo-random number stream
+     * @param isGray a flag for gray code representation
+     * @param crossoverId
+     * @param cache the fitness cache, or null for none
+     */
+    public BinaryPopulation(GATestFunction testFunction, RandomStream rand,
+            boolean isGray, int crossoverId, FitnessCache cache) {
         
-        for (int i = 0; i < SGAVariationAnalysis.POP_SIZE; i++) {
-            population.add(i, new BinaryIndividual(testFunction, rand, isGray));
+        this(testFunction, rand, crossoverId, 
+                SGAVariationAnalysis.CONFIG.withGray(isGray), cache, null);
+    }
+    
+    /**
+     * Creates a population using the parameters specified in the given
+     * fitness function, whose individuals look up their objective values
+     * in the given cache before evaluating the function. The individuals
+     * of each generation are evaluated in parallel by the given evaluator
+     * if the function is thread-safe. The population is sized, and its 
+     * representation and variation are parameterized, by the given 
+     * configuration.
+     * 
+     * @param testFunction the fitness function to use
+     * @param rand the pseudo-random number stream
+     * @param crossoverId
+     * @param config the configuration of the run
+     * @param cache the fitness cache, or null for none
+     * @param evaluator the parallel evaluator, or null for none
+     */
+    public BinaryPopulation(GATestFunction testFunction, RandomStream rand,
+            int crossoverId, GAConfig config, FitnessCache cache, 
+            ParallelEvaluator evaluator) {
+        
+        if (crossoverId == BinaryVariation.TPC && config.getPopSize() < 4) {
+            throw new IllegalArgumentException("BinaryPopulation: Three "
+                    + "parent crossover needs a population of at least 4.");
         }
         
-        for (int i = 0; i < SGAVariationAnalysis.POP_SIZE; i++) {
-            matingPool.add(i, null);
+        int popSize = config.getPopSize();
+        BinaryIndividual first = 
+                new BinaryIndividual(testFunction, rand, config.isGray(), 
+                        cache);
+        
+        numWords = first.getWords().length;
+        genotypes = new long[popSize * numWords];
+        nextGenotypes = new long[popSize * numWords];
+        population = createViews(genotypes, first);
+        nextPopulation = createViews(nextGenotypes, first);
+        objValues = new float[popSize];
+        fitTransValues = new float[popSize];
+        matingPool = new int[popSize];
+        this.crossoverId = crossoverId;
+        relFitness = new float[popSize];
+        wheel = config.isAliasSelection() ?
+                new AliasRouletteWheel() : new CumulativeRouletteWheel();
+        this.rand = rand;
+        this.config = config;
+        this.evaluator = testFunction.isThreadSafe() ? evaluator : null;
+        
+        population.get(0).copyFrom(first);
+        for (int i = 1; i < popSize; i++) {
+            population.get(i).randomize();
         }
         
         calcRelFitness();
@@ -65,24 +173,59 @@ public class BinaryPopulation {
     
 /*============================== Private Methods =============================*/
   
+    /**
+     * Creates a view onto each row of the given genotype matrix.
+     * 
+     * @param matrix the genotype matrix
+     * @param prototype the individual the views inherit properties from
+     * @return the list of views, indexed as the rows
+     */
+    private ArrayList<BinaryIndividual> createViews(long[] matrix, 
+            BinaryIndividual prototype) {
+        
+        int popSize = matrix.length / numWords;
+        ArrayList<BinaryIndividual> res = new ArrayList<>(popSize);
+        
+        for (int i = 0; i < popSize; i++) {
+            res.add(new BinaryIndividual(matrix, i * numWords, prototype));
+        }
+        
+        return res;
+    }
+    
     /**
      * Calculates the relative fitness of each individual in the population.
      * If the fitness function reports maximum problem, the objective (fitness)
      * value is used in the calculations. If the fitness function reports a 
      * minimum problem, the fitness transferral value is used in the
-     * calculation.
+     * calculation. The objective and fitness transferral columns are filled
+     * in the same pass, and the roulette wheel is then rebuilt from the 
+     * relative fitness values. With an evaluator, the individuals still 
+     * awaiting evaluation are first evaluated in parallel.
      */
     private void calcRelFitness() {
         
+        int popSize = population.size();
         float totalFitness = 0;
         
-        for (BinaryIndividual bi : population) {
-            totalFitness += bi.getFitTransValue();
+        if (evaluator != null) {
+            ArrayList<BinaryIndividual> current = population;
+            evaluator.forEach(popSize, i -> current.get(i).getObjValue());
         }
         
-        for (BinaryIndividual bi : population) {
-            bi.setRelFitness(bi.getFitTransValue() / totalFitness);
+        for (int i = 0; i < popSize; i++) {
+            BinaryIndividual bi = population.get(i);
+            objValues[i] = bi.getObjValue();
+            fitTransValues[i] = bi.getFitTransValue();
+            totalFitness += fitTransValues[i];
         }
+        
+        for (int i = 0; i < popSize; i++) {
+            relFitness[i] = fitTransValues[i] / totalFitness;
+            population.get(i).setRelFitness(relFitness[i]);
+        }
+        
+        wheel.build(relFitness, popSize);
     }
            
     
@@ -93,24 +236,13 @@ public class BinaryPopulation {
      * uses the relative fitness values to determine the size of each
      * individual's "slice" of the roulette wheel. Selection is done with
      * with replacement, meaning an individual can be selected from the 
-     * population into the mating pool multiple times.
+     * population into the mating pool multiple times. The wheel is built
+     * by calcRelFitness once per generation.
      */
     public void rwSelect() {
         
-        for (int i = 0; i < matingPool.size(); i++) {
-            
-            float select = RAND.nextFloat();
-            float sliceLow = 0.0f;
-            float sliceHigh;
-            
-            for (BinaryIndividual bi : population) {
-                sliceHigh = sliceLow + bi.getRelFitness();
-                if (select >= sliceLow && select <= sliceHigh) {
-                    matingPool.set(i, new BinaryIndividual(bi));
-                    break;
-                }
-                sliceLow = sliceHigh;
-            }
+        for (int i = 0; i < matingPool.length; i++) {
+            matingPool[i] = wheel.select(rand);
         }
     }
     
@@ -119,81 +251,83 @@ public class BinaryPopulation {
      * generation. This method mates adjacent individuals within the mating
      * pool list (i.e., 0 and 1, 2 and 3, etc..). After performing the 
      * crossover operation, each child individual undergoes the mutation 
-     * operation.
+     * operation. The parents are read from the current population in place
+     * and the children are written directly into the rows of the next 
+     * genotype matrix, which replaces the current one once the whole 
+     * generation is built. The two matrices and their views are allocated 
+     * once, so no individuals are created per generation.
      */
     public void reproduce() {
         
-        population.stream().forEach((bi) -> {
-            bi = null;
-        });
-        
-        for (int i = 0; i < matingPool.size(); i += 2) {
+        for (int i = 0; i < matingPool.length; i += 2) {
             
-            BinaryIndividual parentA = matingPool.get(i);
-            BinaryIndividual parentB = matingPool.get(i + 1);
-            ArrayList<BinaryIndividual> children;
+            BinaryIndividual parentA = population.get(matingPool[i]);
+            BinaryIndividual parentB = population.get(matingPool[i + 1]);
+            BinaryIndividual childA = nextPopulation.get(i);
+            BinaryIndividual childB = nextPopulation.get(i + 1);
             
             switch(crossoverId) {
                 case BinaryVariation.SPC:
-                     children = BinaryVariation
-                             .singlePointCrossover(parentA, parentB, false);
+                    BinaryVariation.singlePointCrossover(
+                            parentA, parentB, childA, childB, false, config);
                     break;
                 case BinaryVariation.DPC:
-                    children = BinaryVariation
-                            .dualPointCrossover(parentA, parentB, false);
+                    BinaryVariation.dualPointCrossover(
+                            parentA, parentB, childA, childB, false, config);
                     break;
                 case BinaryVariation.SPCRS:
-                     children = BinaryVariation
-                             .singlePointCrossover(parentA, parentB, true);
+                    BinaryVariation.singlePointCrossover(
+                            parentA, parentB, childA, childB, true, config);
                     break;
                 case BinaryVariation.DPCRS:
-                    children = BinaryVariation
-                            .dualPointCrossover(parentA, parentB, true);
+                    BinaryVariation.dualPointCrossover(
+                            parentA, parentB, childA, childB, true, config);
                     break;
                 case BinaryVariation.RC:
-                    children = BinaryVariation
-                            .ringCrossover(parentA, parentB);
+                    BinaryVariation.ringCrossover(
+                            parentA, parentB, childA, childB, config);
                     break;
                 case BinaryVariation.UC:
-                    children = BinaryVariation
-                            .uniformCrossover(parentA, parentB);
+                    BinaryVariation.uniformCrossover(
+                            parentA, parentB, childA, childB, config);
                     break;
                 case BinaryVariation.SC:
-                    children = BinaryVariation
-                            .shuffleCrossover(parentA, parentB, false);
+                    BinaryVariation.shuffleCrossover(
+                            parentA, parentB, childA, childB, false, config);
                     break;
                 case BinaryVariation.SCRS:
-                    children = BinaryVariation
-                            .shuffleCrossover(parentA, parentB, true);
+                    BinaryVariation.shuffleCrossover(
+                            parentA, parentB, childA, childB, true, config);
                     break;
                 case BinaryVariation.TPC:
                     // In this case, a third parent is chosen from the 
                     // individual remaining in the mating pool.
                     int j;
                     do {
-                        j = (int) (RAND.nextFloat() * matingPool.size());
+                        j = (int) (rand.nextFloat() * matingPool.length);
                     } while (j == i || j == i+1);
-                    BinaryIndividual parentC = matingPool.get(j);
-                    children = BinaryVariation
-                            .threeParentCrossover(parentA, parentC, parentB);
+                    BinaryIndividual parentC = population.get(matingPool[j]);
+                    BinaryVariation.threeParentCrossover(
+                            parentA, parentC, parentB, childA, childB, config);
                     break;
                 default:
                     System.out.println("BinaryPopulation: Invalid id. "
                             + "Using SPC.");
-                    children = BinaryVariation
-                            .singlePointCrossover(parentA, parentB, false);
+                    BinaryVariation.singlePointCrossover(
+                            parentA, parentB, childA, childB, false, config);
             }
             
-            BinaryVariation.bitFlipMutation(children.get(0));
-            BinaryVariation.bitFlipMutation(children.get(1));
-            
-            population.set(i, children.get(0));
-            population.set(i + 1, children.get(1));
+            BinaryVariation.bitFlipMutation(childA, config);
+            BinaryVariation.bitFlipMutation(childB, config);
         }
         
-        matingPool.stream().forEach((bi) -> {
-            bi = null;
-        });
+        long[] tmpGenotypes = genotypes;
+        genotypes = nextGenotypes;
+        nextGenotypes = tmpGenotypes;
+        
+        ArrayList<BinaryIndividual> tmp = population;
+        population = nextPopulation;
+        nextPopulation = tmp;
         
         calcRelFitness();
     }
@@ -202,6 +336,11 @@ public class BinaryPopulation {
 /*============================ Getters and Setters ===========================*/
 
     /**
+     * Returns the individuals of the population. Each is a view onto a row
+     * of a genotype matrix that is reused by the second following call to
+     * reproduce, so an individual that must be kept longer should be 
+     * copied with {@link BinaryIndividual#BinaryIndividual(BinaryIndividual)}.
+     * 
      * @return the population
      */
     public ArrayList<BinaryIndividual> getPopulation() {
@@ -210,10 +349,57 @@ public class BinaryPopulation {
     }
     
     /**
+     * Returns the objective value of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the objective values
+     */
+    public float[] getObjValues() {
+        
+        return objValues;
+    }
+    
+    /**
+     * Returns the fitness transferral of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the fitness transferral values
+     */
+    public float[] getFitTransValues() {
+        
+        return fitTransValues;
+    }
+    
+    /**
+     * Returns the relative fitness of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the relative fitness values
+     */
+    public float[] getRelFitness() {
+        
+        return relFitness;
+    }
+    
+    /**
+     * Returns the individuals currently selected into the mating pool. The
+     * list is built on each call from the pool's indices, which refer to 
+     * the current population, so it is only meaningful between a call to
+     * rwSelect and the following call to reproduce.
+     * 
      * @return the mating pool
      */
     public ArrayList<BinaryIndividual> getMatingPool() {
         
-        return matingPool;
+        ArrayList<BinaryIndividual> res = new ArrayList<>(matingPool.length);
+        
+        for (int index : matingPool) {
+            res.add(population.get(index));
+        }
+        
+        return res;
     }
 }
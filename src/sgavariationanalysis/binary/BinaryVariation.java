@@ -5,9 +5,9 @@
 package sgavariationanalysis.binary;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import sgavariationanalysis.GAConfig;
 import sgavariationanalysis.SGAVariationAnalysis;
+import sgavariationanalysis.random.RandomStream;
 
 /**
  *
@@ -16,11 +16,9 @@ import sgavariationanalysis.SGAVariationAnalysis;
 public class BinaryVariation {
     
     
-    private static final Random RAND = SGAVariationAnalysis.RAND;
-    private static final float CROSSOVER_PROB = 
-            SGAVariationAnalysis.CROSSOVER_PROB;
-    private static final float MUTATION_PROB = 
-            SGAVariationAnalysis.MUTATION_PROB;
+    /* A reusable permutation buffer for shuffle crossover, one per thread */
+    private static final ThreadLocal<int[]> SHUFFLE_MAP = 
+            ThreadLocal.withInitial(() -> new int[0]);
     
     
 /*================================== Constants ===============================*/
@@ -73,54 +71,71 @@ public class BinaryVariation {
             BinaryIndividual parentB,
             boolean reducedSurrogate) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentB.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentB);
+        
+        singlePointCrossover(parentA, parentB, childA, childB, 
+                reducedSurrogate, SGAVariationAnalysis.CONFIG);
+        
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * single point crossover method into the given child individuals, 
+     * which must not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param reducedSurrogate a flag for reduced surrogate
+     * @param config the configuration of the run
+     */
+    static void singlePointCrossover(
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            boolean reducedSurrogate,
+            GAConfig config) {
         
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            int numGenes = chromoChildA.size();
+            long[] wordsA = childA.getWords();
+            long[] wordsB = childB.getWords();
+            int offA = childA.getOffset();
+            int offB = childB.getOffset();
+            int numGenes = parentA.getNumGenes();
             int lowerBound = 1;
             int upperBound = numGenes - 1;
             int crossPoint;
 
             if (reducedSurrogate) {
-                for (int i = lowerBound; i < upperBound; i++) {
-                    if (chromoChildA.get(i) ^ chromoChildB.get(i)) {
-                        lowerBound = i;
-                        break;
-                    }
-                }
-                for (int i = upperBound; i > lowerBound; i--) {
-                    if (chromoChildA.get(i-1) ^ chromoChildB.get(i-1)) { 
-                        upperBound = i;
-                        break;
-                    }
+                int first = BitVectors.firstDifference(
+                        wordsA, offA, wordsB, offB, lowerBound, upperBound);
+                if (first >= 0) {
+                    lowerBound = first;
+                    upperBound = BitVectors.lastDifference(
+                            wordsA, offA, wordsB, offB, first, upperBound) + 1;
                 }
-                if (lowerBound >= upperBound) { // identical chromsomes
+                else if (lowerBound >= upperBound) { // identical chromosomes
                     lowerBound = 0;
                     upperBound = numGenes - 1;
                 }
             }
 
-            do {
-                crossPoint = (int) (RAND.nextFloat() * numGenes);
-            } while (crossPoint < lowerBound || crossPoint > upperBound);
-
+            crossPoint = drawPoint(rand, lowerBound, upperBound);
 
-            for (int j = 0; j < numGenes; j++) {
-                if (j > crossPoint) {
-                    chromoChildA.set(j, parentB.getChromosome().get(j));
-                    chromoChildB.set(j, parentA.getChromosome().get(j));
-                }
-            }
+            BitVectors.swapRange(wordsA, offA, wordsB, offB, 
+                    crossPoint + 1, numGenes);
+            childA.genotypeChanged();
+            childB.genotypeChanged();
         }
-        
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
-        
-        return res;
     }
     
     /**
@@ -139,45 +154,74 @@ public class BinaryVariation {
             BinaryIndividual parentB,
             boolean reducedSurrogate) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentB.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentB);
+        
+        dualPointCrossover(parentA, parentB, childA, childB, 
+                reducedSurrogate, SGAVariationAnalysis.CONFIG);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * dual point crossover method into the given child individuals, which 
+     * must not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param reducedSurrogate a flag for reduced surrogate
+     * @param config the configuration of the run
+     */
+    static void dualPointCrossover(
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            boolean reducedSurrogate,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            int numGenes = chromoChildA.size();
+            long[] wordsA = childA.getWords();
+            long[] wordsB = childB.getWords();
+            int offA = childA.getOffset();
+            int offB = childB.getOffset();
+            int numGenes = parentA.getNumGenes();
             int lowerBound = 1;
             int upperBound = numGenes - 1;
             int crossPoint1;
             int crossPoint2;
 
             if (reducedSurrogate) {
-                for (int i = lowerBound; i < upperBound; i++) {
-                    if (chromoChildA.get(i) ^ chromoChildB.get(i)) {
-                        lowerBound = i;
-                        break;
-                    }
+                int first = BitVectors.firstDifference(
+                        wordsA, offA, wordsB, offB, lowerBound, upperBound);
+                if (first >= 0) {
+                    lowerBound = first;
+                    upperBound = BitVectors.lastDifference(
+                            wordsA, offA, wordsB, offB, first, upperBound) + 1;
                 }
-                for (int i = upperBound; i > lowerBound; i--) {
-                    if (chromoChildA.get(i-1) ^ chromoChildB.get(i-1)) { 
-                        upperBound = i;
-                        break;
-                    }
-                }
-                if (lowerBound >= upperBound) { // identical chromsomes
+                else if (lowerBound >= upperBound) { // identical chromosomes
                     lowerBound = 0;
                     upperBound = numGenes - 1;
                 }
             }
 
-            do {
-                crossPoint1 = (int) (RAND.nextFloat() * numGenes);
-            } while (crossPoint1 < lowerBound || crossPoint1 > upperBound);
-
-            do {
-                crossPoint2 = (int) (RAND.nextFloat() * numGenes);
-            } while (crossPoint2 < lowerBound || crossPoint2 > upperBound || 
-                    crossPoint2 == crossPoint1);
+            crossPoint1 = drawPoint(rand, lowerBound, upperBound);
+            crossPoint2 = crossPoint1;
+            if (upperBound > lowerBound) {
+                // Draw from the window less the first point, skipping it
+                crossPoint2 = drawPoint(rand, lowerBound, upperBound - 1);
+                if (crossPoint2 >= crossPoint1) {
+                    crossPoint2++;
+                }
+            }
         
             if (crossPoint1 > crossPoint2) {
                 int tmp = crossPoint1;
@@ -185,16 +229,11 @@ public class BinaryVariation {
                 crossPoint2 = tmp;
             }
             
-            for (int j = crossPoint1; j < crossPoint2; j++) {
-                    chromoChildA.set(j, parentB.getChromosome().get(j));
-                    chromoChildB.set(j, parentA.getChromosome().get(j));
-                }
+            BitVectors.swapRange(wordsA, offA, wordsB, offB, 
+                    crossPoint1, crossPoint2);
+            childA.genotypeChanged();
+            childB.genotypeChanged();
         }
-        
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
-        
-        return res;
     }
     
     /**
@@ -209,39 +248,91 @@ public class BinaryVariation {
             BinaryIndividual parentA,
             BinaryIndividual parentB) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentB.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentB);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        ringCrossover(parentA, parentB, childA, childB, 
+                SGAVariationAnalysis.CONFIG);
+        
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * ring crossover method into the given child individuals, which must 
+     * not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param config the configuration of the run
+     */
+    static void ringCrossover (
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
            
-            int numGenes = chromoChildA.size();
-            int lowerBound = 1;
-            int upperBound = numGenes - 1;
-            int cutPoint;
-
-            ArrayList<Boolean> parentRing = new ArrayList<>();
-            parentRing.addAll(parentA.getChromosome());
-            parentRing.addAll(parentB.getChromosome());
-
-            do {
-                cutPoint = (int) (RAND.nextFloat() * numGenes);
-            } while (cutPoint < lowerBound || cutPoint > upperBound);
-
-            for (int i = 0, cp = cutPoint; i < numGenes; i++, cp++) {
-                chromoChildA.set(i, parentRing.get(cp % parentRing.size()));
-            }
-
-            for (int i = 0, cp = cutPoint; i < numGenes; i++, cp--) {
-                int n = parentRing.size();
-                chromoChildB.set(i, parentRing.get(((cp % n) + n) % n));
-            }
+            int cutPoint = drawPoint(rand, 1, parentA.getNumGenes() - 1);
+            
+            cutRing(parentA, parentB, childA, childB, cutPoint);
         }
+    }
+    
+    /**
+     * Writes the two children read from the ring of the given parents at 
+     * the given cut point into the given child individuals, which must 
+     * not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param cutPoint the cut point, between 1 and numGenes - 1
+     */
+    static void cutRing(
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            int cutPoint) {
         
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
+        long[] wordsA = parentA.getWords();
+        long[] wordsB = parentB.getWords();
+        int offA = parentA.getOffset();
+        int offB = parentB.getOffset();
+        long[] chromoChildA = childA.getWords();
+        long[] chromoChildB = childB.getWords();
+        int offChildA = childA.getOffset();
+        int offChildB = childB.getOffset();
+        int numGenes = parentA.getNumGenes();
+
+        // The ring is the chromosome of parent A followed by that of 
+        // parent B. Child A reads the ring forwards from the cut point,
+        // the tail of A followed by the head of B.
+        BitVectors.copyBits(wordsA, offA, cutPoint, 
+                chromoChildA, offChildA, 0, numGenes - cutPoint);
+        BitVectors.copyBits(wordsB, offB, 0, 
+                chromoChildA, offChildA, numGenes - cutPoint, cutPoint);
+
+        // Child B reads the ring backwards from the cut point, the 
+        // head of A reversed followed by the tail of B reversed.
+        BitVectors.copyBitsReversed(wordsA, offA, 0, 
+                chromoChildB, offChildB, 0, cutPoint + 1);
+        BitVectors.copyBitsReversed(wordsB, offB, cutPoint + 1, 
+                chromoChildB, offChildB, cutPoint + 1, 
+                numGenes - cutPoint - 1);
         
-        return res;
+        childA.genotypeChanged();
+        childB.genotypeChanged();
     }
     
     /**
@@ -256,25 +347,58 @@ public class BinaryVariation {
             BinaryIndividual parentA,
             BinaryIndividual parentB) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentB.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentB);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
-            
-            for (int i = 0; i < chromoChildA.size(); i++) {
-                if (RAND.nextFloat() > 0.5f) {
-                    chromoChildA.set(i, parentB.getChromosome().get(i));
-                    chromoChildB.set(i, parentA.getChromosome().get(i));
-                }
-            }
-        }
+        uniformCrossover(parentA, parentB, childA, childB, 
+                SGAVariationAnalysis.CONFIG);
         
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * uniform crossover method into the given child individuals, which 
+     * must not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param config the configuration of the run
+     */
+    static void uniformCrossover (
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            GAConfig config) {
         
-        return res;
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
         
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
+            
+            long[] wordsA = childA.getWords();
+            long[] wordsB = childB.getWords();
+            int offA = childA.getOffset();
+            int offB = childB.getOffset();
+            int numGenes = parentA.getNumGenes();
+            
+            // Each bit of a random word decides the exchange of one gene,
+            // so 64 genes are handled per draw.
+            int last = BitVectors.numWords(numGenes) - 1;
+            for (int w = 0; w < last; w++) {
+                BitVectors.swapMasked(wordsA, offA, wordsB, offB, w, 
+                        rand.nextLong());
+            }
+            BitVectors.swapMasked(wordsA, offA, wordsB, offB, last, 
+                    rand.nextLong() & BitVectors.tailMask(numGenes));
+            
+            childA.genotypeChanged();
+            childB.genotypeChanged();
+        }
     }
     
     /**
@@ -293,63 +417,90 @@ public class BinaryVariation {
             BinaryIndividual parentB,
             boolean reducedSurrogate) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentB.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentB);
+        
+        shuffleCrossover(parentA, parentB, childA, childB, reducedSurrogate,
+                SGAVariationAnalysis.CONFIG);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * shuffle crossover method into the given child individuals, which 
+     * must not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param reducedSurrogate a flag for reduced surrogate
+     * @param config the configuration of the run
+     */
+    static void shuffleCrossover (
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            boolean reducedSurrogate,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
          
-            int numGenes = chromoChildA.size();
+            long[] wordsA = childA.getWords();
+            long[] wordsB = childB.getWords();
+            int offA = childA.getOffset();
+            int offB = childB.getOffset();
+            int numGenes = parentA.getNumGenes();
             int lowerBound = 1;
             int upperBound = numGenes - 1;
             int crossPoint;
         
-            ArrayList<Integer> shuffleMap = new ArrayList<>();
-            for (int i = 0; i < chromoChildA.size(); i++) {
-                shuffleMap.add(i, i);
-            }
-            Collections.shuffle(shuffleMap);
+            int[] shuffleMap = shuffle(rand, numGenes);
             
             if (reducedSurrogate) {
-                for (int i = lowerBound; i < upperBound; i++) {
-                    int mi = shuffleMap.get(i);
-                    if (chromoChildA.get(mi) ^ chromoChildB.get(mi)) {
-                        lowerBound = i;
-                        break;
-                    }
-                }
-                for (int i = upperBound; i > lowerBound; i--) {
-                    int mi = shuffleMap.get(i-1);
-                    if (chromoChildA.get(mi) ^ chromoChildB.get(mi)) { 
-                        upperBound = i;
-                        break;
-                    }
-                }
-                if (lowerBound >= upperBound) { // identical chromsomes
+                if (BitVectors.firstDifference(
+                        wordsA, offA, wordsB, offB, 0, numGenes) < 0) {
+                    // identical chromosomes, no need to walk the shuffle
                     lowerBound = 0;
                     upperBound = numGenes - 1;
                 }
+                else {
+                    for (int i = lowerBound; i < upperBound; i++) {
+                        int mi = shuffleMap[i];
+                        if (BitVectors.get(wordsA, offA, mi) ^ 
+                                BitVectors.get(wordsB, offB, mi)) {
+                            lowerBound = i;
+                            break;
+                        }
+                    }
+                    for (int i = upperBound; i > lowerBound; i--) {
+                        int mi = shuffleMap[i-1];
+                        if (BitVectors.get(wordsA, offA, mi) ^ 
+                                BitVectors.get(wordsB, offB, mi)) { 
+                            upperBound = i;
+                            break;
+                        }
+                    }
+                }
             }
 
-            do {
-                crossPoint = (int) (RAND.nextFloat() * numGenes);
-            } while (crossPoint < lowerBound || crossPoint > upperBound);
-
+            crossPoint = drawPoint(rand, lowerBound, upperBound);
 
-            for (int i = 0; i < numGenes; i++) {
-                if (i > crossPoint) {
-                    int mi = shuffleMap.get(i);
-                    chromoChildA.set(mi, parentB.getChromosome().get(mi));
-                    chromoChildB.set(mi, parentA.getChromosome().get(mi));
-                }
+            for (int i = crossPoint + 1; i < numGenes; i++) {
+                int mi = shuffleMap[i];
+                BitVectors.swapMasked(wordsA, offA, wordsB, offB, mi >>> 6, 
+                        1L << mi);
             }
+            
+            childA.genotypeChanged();
+            childB.genotypeChanged();
         }
-        
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
-        
-        return res;
-        
     }
     
     /**
@@ -372,31 +523,131 @@ public class BinaryVariation {
             BinaryIndividual parentB,
             BinaryIndividual parentC) {
         
-        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
-        ArrayList<Boolean> chromoChildA = parentA.getChromosome();
-        ArrayList<Boolean> chromoChildB = parentC.getChromosome();
+        BinaryIndividual childA = new BinaryIndividual(parentA);
+        BinaryIndividual childB = new BinaryIndividual(parentC);
+        
+        threeParentCrossover(parentA, parentB, parentC, childA, childB,
+                SGAVariationAnalysis.CONFIG);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * three parent crossover method into the given child individuals, 
+     * which must not share rows with the parents.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param parentC the third parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param config the configuration of the run
+     */
+    static void threeParentCrossover (
+            BinaryIndividual parentA,
+            BinaryIndividual parentB,
+            BinaryIndividual parentC,
+            BinaryIndividual childA,
+            BinaryIndividual childB,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentC);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
+            
+            long[] pA = parentA.getWords();
+            long[] pB = parentB.getWords();
+            long[] pC = parentC.getWords();
+            long[] wordsA = childA.getWords();
+            long[] wordsB = childB.getWords();
+            int offA = parentA.getOffset();
+            int offB = parentB.getOffset();
+            int offC = parentC.getOffset();
+            int offChildA = childA.getOffset();
+            int offChildB = childB.getOffset();
+            int numWords = BitVectors.numWords(parentA.getNumGenes());
             
-            for (int i = 0; i < chromoChildA.size(); i++) {
-                
-                boolean pA = parentA.getChromosome().get(i);
-                boolean pB = parentB.getChromosome().get(i);
-                boolean pC = parentC.getChromosome().get(i);
-                
-                boolean cA = !(pA ^ pB) ? pA : pC;
-                boolean cB = !(pC ^ pB) ? pC : pA;
-                
-                chromoChildA.set(i, cA);
-                chromoChildB.set(i, cB);
+            for (int w = 0; w < numWords; w++) {
+                long a = pA[offA + w];
+                long b = pB[offB + w];
+                long c = pC[offC + w];
+                wordsA[offChildA + w] = BitVectors.select(a, b, c);
+                wordsB[offChildB + w] = BitVectors.select(c, b, a);
             }
+            
+            childA.genotypeChanged();
+            childB.genotypeChanged();
         }
+    }
+    
+    
+/*============================== Helper Methods ==============================*/
+
+    
+    /**
+     * Returns a new list holding the two given children.
+     * 
+     * @param childA the first child
+     * @param childB the second child
+     * @return a list containing two children
+     */
+    private static ArrayList<BinaryIndividual> pair(BinaryIndividual childA,
+            BinaryIndividual childB) {
         
-        res.add(0, new BinaryIndividual(chromoChildA, parentA));
-        res.add(1, new BinaryIndividual(chromoChildB, parentB));
+        ArrayList<BinaryIndividual> res = new ArrayList<>(2);
+        res.add(0, childA);
+        res.add(1, childB);
         
         return res;
+    }
+    
+    /**
+     * Returns a uniformly random permutation of the loci 0 to numGenes - 1,
+     * generated with the inside-out Fisher-Yates shuffle. The permutation
+     * is held in a buffer reused by every call on the same thread, so it
+     * is only valid until the next call.
+     * 
+     * @param rand the pseudo-random number stream
+     * @param numGenes the number of loci to permute
+     * @return the buffer holding the permutation in its first numGenes 
+     *         entries
+     */
+    static int[] shuffle(RandomStream rand, int numGenes) {
+        
+        int[] map = SHUFFLE_MAP.get();
+        if (map.length < numGenes) {
+            map = new int[numGenes];
+            SHUFFLE_MAP.set(map);
+        }
+        
+        for (int i = 0; i < numGenes; i++) {
+            int j = rand.nextInt(i + 1);
+            map[i] = map[j];
+            map[j] = i;
+        }
         
+        return map;
+    }
+    
+    /**
+     * Draws a crossover point uniformly from the window [lowerBound, 
+     * upperBound] using a single draw.
+     * 
+     * @param rand the pseudo-random number stream
+     * @param lowerBound the first allowed point, inclusive
+     * @param upperBound the last allowed point, inclusive
+     * @return the crossover point
+     */
+    private static int drawPoint(RandomStream rand, int lowerBound, 
+            int upperBound) {
+        
+        int point = lowerBound + 
+                (int) (rand.nextFloat() * (upperBound - lowerBound + 1));
+        
+        return point < upperBound ? point : upperBound;
     }
     
     
@@ -404,16 +655,75 @@ public class BinaryVariation {
 
     
     /**
-     * Performs a bit-flip mutation on the given individual.
+     * Performs a bit-flip mutation on the given individual. Rather than 
+     * drawing once per gene, the gaps between flipped genes are sampled 
+     * from the geometric distribution, so the number of draws is 
+     * proportional to the number of flips. The flips falling in each word 
+     * are applied as a single XOR mask and the individual is re-evaluated 
+     * once at the end. The mutation probability is that of the default
+     * configuration.
      * 
      * @param individual the individual to be mutated
      */
     public static void bitFlipMutation(BinaryIndividual individual) {
         
-        for (int i = 0; i < individual.getChromosome().size(); i++) {
-            if (RAND.nextFloat() < MUTATION_PROB) {
-                individual.setGene(i, !individual.getGene(i));
-            }
+        bitFlipMutation(individual, SGAVariationAnalysis.CONFIG);
+    }
+    
+    /**
+     * Performs a bit-flip mutation on the given individual with the 
+     * mutation probability of the given configuration.
+     * 
+     * @param individual the individual to be mutated
+     * @param config the configuration of the run
+     */
+    public static void bitFlipMutation(BinaryIndividual individual, 
+            GAConfig config) {
+        
+        float mutationProb = config.getMutationProb();
+        if (mutationProb <= 0.0f) {
+            return;
+        }
+        
+        double logNoMutation = Math.log1p(-mutationProb);
+        RandomStream rand = individual.getRand();
+        long[] words = individual.getWords();
+        int off = individual.getOffset();
+        int numGenes = individual.getNumGenes();
+        long locus = nextMutationGap(rand, logNoMutation, numGenes);
+        
+        if (locus >= numGenes) {
+            return;
+        }
+        
+        while (locus < numGenes) {
+            int w = (int) (locus >>> 6);
+            long mask = 0L;
+            do {
+                mask |= 1L << locus;
+                locus += 1 + nextMutationGap(rand, logNoMutation, numGenes);
+            } while (locus < numGenes && (int) (locus >>> 6) == w);
+            words[off + w] ^= mask;
         }
+        
+        individual.genotypeChanged();
+    }
+    
+    /**
+     * Returns the number of genes to skip before the next mutated gene,
+     * sampled from the geometric distribution with success probability 
+     * p, given as log(1 - p). The result is capped at the given limit.
+     * 
+     * @param rand the pseudo-random number stream
+     * @param logNoMutation the log of the probability of no mutation
+     * @param limit the largest gap worth reporting
+     * @return the number of genes to skip
+     */
+    private static long nextMutationGap(RandomStream rand, 
+            double logNoMutation, int limit) {
+        
+        double gap = Math.log(1.0 - rand.nextDouble()) / logNoMutation;
+        
+        return gap < limit ? (long) gap : limit;
     }
 }
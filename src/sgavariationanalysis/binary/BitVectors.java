@@ -0,0 +1,320 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   BitVectors.java
+ */
+package sgavariationanalysis.binary;
+
+/**
+ * Static helpers for working with packed bit-vectors. A bit-vector of
+ * length n is stored in ceil(n / 64) consecutive longs of an array,
+ * starting at a word offset, where the bit at locus l is held in word
+ * offset + l / 64 at bit position l % 64. Bits past the end of the
+ * vector in the last word are always kept clear. The offset lets several
+ * bit-vectors share one array, such as the rows of a population's
+ * genotype matrix.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+final class BitVectors {
+
+
+    /* The number of bits held in a single word */
+    static final int WORD_SIZE = 64;
+    
+    /* LOW_MASKS[k] has the k least significant bits set, for 0 <= k <= 64 */
+    private static final long[] LOW_MASKS = new long[WORD_SIZE + 1];
+
+    static {
+        for (int k = 0; k < WORD_SIZE; k++) {
+            LOW_MASKS[k] = (1L << k) - 1;
+        }
+        LOW_MASKS[WORD_SIZE] = -1L;
+    }
+
+
+    private BitVectors() {
+    }
+
+
+/*=============================== Static Methods =============================*/
+
+
+    /**
+     * Returns the number of words needed to hold the given number of bits.
+     *
+     * @param numBits the length of the bit-vector
+     * @return the number of words
+     */
+    static int numWords(int numBits) {
+        return (numBits + WORD_SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Returns a mask of the valid bits in the last word of a bit-vector of
+     * the given length.
+     *
+     * @param numBits the length of the bit-vector
+     * @return the mask for the last word
+     */
+    static long tailMask(int numBits) {
+        return LOW_MASKS[((numBits - 1) & (WORD_SIZE - 1)) + 1];
+    }
+
+    /**
+     * Returns the mask of the bits of the given word which fall within the
+     * locus range [from, to). The range must overlap the word.
+     *
+     * @param word the index of the word within the bit-vector
+     * @param from the first locus of the range, inclusive
+     * @param to the last locus of the range, exclusive
+     * @return the mask for the word
+     */
+    static long rangeMask(int word, int from, int to) {
+        
+        long mask = -1L;
+        if (word == from >>> 6) {
+            mask &= ~LOW_MASKS[from & (WORD_SIZE - 1)];
+        }
+        if (word == (to - 1) >>> 6) {
+            mask &= LOW_MASKS[((to - 1) & (WORD_SIZE - 1)) + 1];
+        }
+        
+        return mask;
+    }
+
+    /**
+     * @param words the array holding the bit-vector
+     * @param off the word offset of the bit-vector
+     * @param locus the location of the bit
+     * @return the bit at the given locus
+     */
+    static boolean get(long[] words, int off, int locus) {
+        return (words[off + (locus >>> 6)] & (1L << locus)) != 0;
+    }
+
+    /**
+     * @param words the array holding the bit-vector
+     * @param off the word offset of the bit-vector
+     * @param locus the location of the bit
+     * @param bit the value to set
+     */
+    static void set(long[] words, int off, int locus, boolean bit) {
+        if (bit) {
+            words[off + (locus >>> 6)] |= 1L << locus;
+        }
+        else {
+            words[off + (locus >>> 6)] &= ~(1L << locus);
+        }
+    }
+    
+    /**
+     * Reads up to 64 consecutive bits starting at the given locus.
+     *
+     * @param words the array holding the bit-vector
+     * @param off the word offset of the bit-vector
+     * @param from the first locus to read
+     * @param numBits the number of bits to read, between 1 and 64
+     * @return the bits, with the bit at from as the least significant
+     */
+    static long readBits(long[] words, int off, int from, int numBits) {
+        
+        int w = off + (from >>> 6);
+        int shift = from & (WORD_SIZE - 1);
+        long bits = words[w] >>> shift;
+        
+        if (shift + numBits > WORD_SIZE) {
+            bits |= words[w + 1] << (WORD_SIZE - shift);
+        }
+        
+        return bits & LOW_MASKS[numBits];
+    }
+    
+    /**
+     * Writes up to 64 consecutive bits starting at the given locus,
+     * leaving the bits around them unchanged.
+     *
+     * @param words the array holding the bit-vector
+     * @param off the word offset of the bit-vector
+     * @param from the first locus to write
+     * @param numBits the number of bits to write, between 1 and 64
+     * @param bits the bits, with the bit for from as the least significant
+     */
+    static void writeBits(long[] words, int off, int from, int numBits,
+            long bits) {
+        
+        int w = off + (from >>> 6);
+        int shift = from & (WORD_SIZE - 1);
+        long mask = LOW_MASKS[numBits];
+        bits &= mask;
+        
+        words[w] = (words[w] & ~(mask << shift)) | (bits << shift);
+        if (shift + numBits > WORD_SIZE) {
+            int spill = shift + numBits - WORD_SIZE;
+            words[w + 1] = (words[w + 1] & ~LOW_MASKS[spill]) |
+                    (bits >>> (WORD_SIZE - shift));
+        }
+    }
+    
+    /**
+     * Copies a range of bits from one bit-vector into another, 64 bits
+     * at a time.
+     *
+     * @param src the array holding the source bit-vector
+     * @param srcOff the word offset of the source bit-vector
+     * @param srcFrom the first locus to copy from
+     * @param dst the array holding the destination bit-vector
+     * @param dstOff the word offset of the destination bit-vector
+     * @param dstFrom the first locus to copy to
+     * @param numBits the number of bits to copy
+     */
+    static void copyBits(long[] src, int srcOff, int srcFrom,
+            long[] dst, int dstOff, int dstFrom, int numBits) {
+        
+        for (int done = 0; done < numBits; done += WORD_SIZE) {
+            int n = Math.min(WORD_SIZE, numBits - done);
+            writeBits(dst, dstOff, dstFrom + done, n,
+                    readBits(src, srcOff, srcFrom + done, n));
+        }
+    }
+    
+    /**
+     * Copies a range of bits from one bit-vector into another in reverse
+     * order, 64 bits at a time, so that locus dstFrom + i of the
+     * destination receives locus srcFrom + numBits - 1 - i of the source.
+     *
+     * @param src the array holding the source bit-vector
+     * @param srcOff the word offset of the source bit-vector
+     * @param srcFrom the first locus of the source range
+     * @param dst the array holding the destination bit-vector
+     * @param dstOff the word offset of the destination bit-vector
+     * @param dstFrom the first locus to copy to
+     * @param numBits the number of bits to copy
+     */
+    static void copyBitsReversed(long[] src, int srcOff, int srcFrom,
+            long[] dst, int dstOff, int dstFrom, int numBits) {
+        
+        for (int done = 0; done < numBits; done += WORD_SIZE) {
+            int n = Math.min(WORD_SIZE, numBits - done);
+            long bits = readBits(src, srcOff,
+                    srcFrom + numBits - done - n, n);
+            writeBits(dst, dstOff, dstFrom + done, n,
+                    Long.reverse(bits) >>> (WORD_SIZE - n));
+        }
+    }
+    
+    /**
+     * Exchanges the bits selected by the mask between word w of the two
+     * bit-vectors.
+     *
+     * @param a the array holding the first bit-vector
+     * @param aOff the word offset of the first bit-vector
+     * @param b the array holding the second bit-vector
+     * @param bOff the word offset of the second bit-vector
+     * @param w the index of the word within the bit-vectors
+     * @param mask the bits to exchange
+     */
+    static void swapMasked(long[] a, int aOff, long[] b, int bOff, int w,
+            long mask) {
+        
+        long t = (a[aOff + w] ^ b[bOff + w]) & mask;
+        a[aOff + w] ^= t;
+        b[bOff + w] ^= t;
+    }
+    
+    /**
+     * Exchanges the bits in the locus range [from, to) between the two
+     * bit-vectors.
+     *
+     * @param a the array holding the first bit-vector
+     * @param aOff the word offset of the first bit-vector
+     * @param b the array holding the second bit-vector
+     * @param bOff the word offset of the second bit-vector
+     * @param from the first locus of the range, inclusive
+     * @param to the last locus of the range, exclusive
+     */
+    static void swapRange(long[] a, int aOff, long[] b, int bOff,
+            int from, int to) {
+        
+        if (from >= to) {
+            return;
+        }
+        
+        for (int w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+            swapMasked(a, aOff, b, bOff, w, rangeMask(w, from, to));
+        }
+    }
+    
+    /**
+     * Returns the first locus in the range [from, to) at which the two
+     * bit-vectors differ, found a word at a time from the XOR of the
+     * vectors.
+     *
+     * @param a the array holding the first bit-vector
+     * @param aOff the word offset of the first bit-vector
+     * @param b the array holding the second bit-vector
+     * @param bOff the word offset of the second bit-vector
+     * @param from the first locus of the range, inclusive
+     * @param to the last locus of the range, exclusive
+     * @return the first differing locus, or -1 if the range is identical
+     */
+    static int firstDifference(long[] a, int aOff, long[] b, int bOff,
+            int from, int to) {
+        
+        if (from >= to) {
+            return -1;
+        }
+        
+        for (int w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+            long diff = (a[aOff + w] ^ b[bOff + w]) & rangeMask(w, from, to);
+            if (diff != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(diff);
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Returns the last locus in the range [from, to) at which the two
+     * bit-vectors differ, found a word at a time from the XOR of the
+     * vectors.
+     *
+     * @param a the array holding the first bit-vector
+     * @param aOff the word offset of the first bit-vector
+     * @param b the array holding the second bit-vector
+     * @param bOff the word offset of the second bit-vector
+     * @param from the first locus of the range, inclusive
+     * @param to the last locus of the range, exclusive
+     * @return the last differing locus, or -1 if the range is identical
+     */
+    static int lastDifference(long[] a, int aOff, long[] b, int bOff,
+            int from, int to) {
+        
+        if (from >= to) {
+            return -1;
+        }
+        
+        for (int w = (to - 1) >>> 6; w >= from >>> 6; w--) {
+            long diff = (a[aOff + w] ^ b[bOff + w]) & rangeMask(w, from, to);
+            if (diff != 0) {
+                return (w << 6) + (WORD_SIZE - 1) -
+                        Long.numberOfLeadingZeros(diff);
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Returns the bitwise select of the three words, taking the bits of
+     * a where a and b agree and the bits of c elsewhere.
+     *
+     * @param a the preferred word
+     * @param b the word to compare against
+     * @param c the word to fall back to
+     * @return the selected word
+     */
+    static long select(long a, long b, long c) {
+        return a ^ ((a ^ b) & (a ^ c));
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   FitnessCache.java
+ */
+package sgavariationanalysis.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * A bounded cache of objective values keyed by genotype. Binary
+ * individuals use their packed chromosome words as the key, and
+ * continuous individuals use their real values, each quantized to a
+ * multiple of the cache's quantum, or taken bit for bit when the quantum
+ * is zero. Keys are a fixed number of longs, stored inline with the
+ * values in primitive arrays.
+ *
+ * With a quantum, every point of a quantum cell shares one entry. So that
+ * the entry's value does not depend on which point of the cell happened
+ * to be stored first, which would make results vary with the scheduling
+ * of the threads sharing the cache, a miss is evaluated at the snapped
+ * point of the cell, as given by {@link #snap(float[], int, int)}. A
+ * quantized fitness is then a function of the cell alone.
+ *
+ * The cache is split into a power of two of stripes, chosen by the high
+ * bits of a key's hash, each guarded by its own lock so that evaluators
+ * on different threads rarely contend. Within a stripe entries are kept
+ * in an open addressing table with linear probing. When a stripe is full,
+ * an entry is evicted with the CLOCK algorithm: a hand sweeps the table,
+ * clearing the referenced bit of each entry it passes and evicting the
+ * first entry whose bit is already clear. A hit sets the bit, so recently
+ * used entries survive a sweep. Deletion shifts the following entries of
+ * the probe run back, so no tombstones are needed.
+ *
+ * Hits, misses and evictions are counted until the statistics are reset.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class FitnessCache {
+
+
+    /* The number of stripes, a power of two */
+    private static final int NUM_STRIPES = 16;
+
+    /* log2 of NUM_STRIPES */
+    private static final int STRIPE_BITS = 4;
+
+    /* Working keys for continuous lookups, one per thread */
+    private static final ThreadLocal<long[]> KEY_SCRATCH =
+            ThreadLocal.withInitial(() -> new long[0]);
+
+    /* Working snapped points for continuous misses, one per thread */
+    private static final ThreadLocal<float[]> POINT_SCRATCH =
+            ThreadLocal.withInitial(() -> new float[0]);
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The number of longs in each key */
+    private final int keyWords;
+
+    /* The quantum continuous real values are rounded to, or 0 for none */
+    private final float quantum;
+
+    /* The stripes of the table */
+    private final Stripe[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+/*================================ Constructors ==============================*/
+
+
+    /**
+     * Creates a cache holding up to the given number of entries, each with
+     * a key of the given number of longs.
+     *
+     * @param capacity the maximum number of entries
+     * @param keyWords the number of longs in each key
+     * @param quantum the quantum continuous real values are rounded to,
+     *                or 0 to key on their exact bits
+     */
+    public FitnessCache(int capacity, int keyWords, float quantum) {
+
+        if (capacity < NUM_STRIPES) {
+            throw new IllegalArgumentException("FitnessCache: capacity "
+                    + "must be at least " + NUM_STRIPES + ".");
+        }
+        if (keyWords < 1) {
+            throw new IllegalArgumentException("FitnessCache: Invalid key "
+                    + "length.");
+        }
+        if (!(quantum >= 0.0f)) {
+            throw new IllegalArgumentException("FitnessCache: Invalid "
+                    + "quantum.");
+        }
+
+        this.keyWords = keyWords;
+        this.quantum = quantum;
+        stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe(capacity / NUM_STRIPES, keyWords);
+        }
+    }
+
+    /**
+     * Creates a cache for binary individuals of the given test function,
+     * keyed by their packed chromosomes.
+     *
+     * @param testFunction the test function
+     * @param capacity the maximum number of entries
+     * @return the cache
+     */
+    public static FitnessCache forBinary(GATestFunction testFunction,
+            int capacity) {
+
+        int numGenes = testFunction.getNumVars() *
+                testFunction.getGenesPerVar();
+
+        return new FitnessCache(capacity, (numGenes + 63) >>> 6, 0.0f);
+    }
+
+    /**
+     * Creates a cache for continuous individuals of the given test
+     * function, keyed by their quantized real values.
+     *
+     * @param testFunction the test function
+     * @param capacity the maximum number of entries
+     * @param quantum the quantum real values are rounded to, or 0 to key
+     *                on their exact bits
+     * @return the cache
+     */
+    public static FitnessCache forContinuous(GATestFunction testFunction,
+            int capacity, float quantum) {
+
+        return new FitnessCache(capacity,
+                (testFunction.getNumVars() + 1) >>> 1, quantum);
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+
+    /**
+     * Returns the cached objective value of the packed chromosome stored
+     * in the given array at the given word offset.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @return the objective value, or NaN if it is not cached
+     */
+    public float get(long[] words, int off) {
+
+        long hash = hash(words, off);
+        float res = stripeOf(hash).get(words, off, (int) hash);
+
+        if (Float.isNaN(res)) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+
+        return res;
+    }
+
+    /**
+     * Caches the objective value of the packed chromosome stored in the
+     * given array at the given word offset. NaN values are not cached.
+     *
+     * @param words the array holding the packed chromosome
+     * @param off the word offset of the chromosome
+     * @param objValue the objective value
+     */
+    public void put(long[] words, int off, float objValue) {
+
+        if (Float.isNaN(objValue)) {
+            return;
+        }
+
+        long hash = hash(words, off);
+        if (stripeOf(hash).put(words, off, (int) hash, objValue)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the cached objective value of the real values stored in the
+     * given array, starting at the given offset.
+     *
+     * @param reals the array holding the real values
+     * @param off the index of the first real value
+     * @param numVars the number of real values
+     * @return the objective value, or NaN if it is not cached
+     */
+    public float get(float[] reals, int off, int numVars) {
+
+        return get(toKey(reals, off, numVars), 0);
+    }
+
+    /**
+     * Caches the objective value of the real values stored in the given
+     * array, starting at the given offset. NaN values are not cached.
+     *
+     * @param reals the array holding the real values
+     * @param off the index of the first real value
+     * @param numVars the number of real values
+     * @param objValue the objective value
+     */
+    public void put(float[] reals, int off, int numVars, float objValue) {
+
+        put(toKey(reals, off, numVars), 0, objValue);
+    }
+
+    /**
+     * Returns the point the given real values are keyed on, each value
+     * rounded to the nearest multiple of the quantum. Evaluating a miss at
+     * this point, rather than at the values themselves, gives every point
+     * of a quantum cell the same objective value whatever the order they
+     * are looked up in. The point is held in a buffer reused by every call
+     * on the same thread, so it is only valid until the next call.
+     *
+     * @param reals the array holding the real values
+     * @param off the index of the first real value
+     * @param numVars the number of real values
+     * @return the buffer holding the point in its first numVars entries
+     */
+    public float[] snap(float[] reals, int off, int numVars) {
+
+        float[] point = POINT_SCRATCH.get();
+        if (point.length < numVars) {
+            point = new float[numVars];
+            POINT_SCRATCH.set(point);
+        }
+
+        for (int i = 0; i < numVars; i++) {
+            float real = reals[off + i];
+            point[i] = quantum == 0.0f ? real : quantize(real) * quantum;
+        }
+
+        return point;
+    }
+
+    /**
+     * @return true if real values are rounded to a quantum
+     */
+    public boolean isQuantized() {
+        return quantum > 0.0f;
+    }
+
+    /**
+     * Removes every entry. The statistics are left unchanged.
+     */
+    public void clear() {
+
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts to zero.
+     */
+    public void resetStatistics() {
+
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+
+/*============================== Private Methods =============================*/
+
+
+    /**
+     * Returns the stripe responsible for the given hash.
+     *
+     * @param hash the hash of a key
+     * @return the stripe
+     */
+    private Stripe stripeOf(long hash) {
+
+        return stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+    }
+
+    /**
+     * Returns a well mixed hash of the key stored at the given offset.
+     *
+     * @param words the array holding the key
+     * @param off the offset of the key
+     * @return the hash
+     */
+    private long hash(long[] words, int off) {
+
+        long h = 0x9E3779B97F4A7C15L;
+
+        for (int i = off; i < off + keyWords; i++) {
+            h = (h ^ words[i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h *= 0x94D049BB133111EBL;
+
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Packs the quantized real values, two per long, into the calling
+     * thread's working key.
+     *
+     * @param reals the array holding the real values
+     * @param off the index of the first real value
+     * @param numVars the number of real values
+     * @return the working key
+     */
+    private long[] toKey(float[] reals, int off, int numVars) {
+
+        if (numVars > 2 * keyWords) {
+            throw new IllegalArgumentException("FitnessCache: too many "
+                    + "variables for the key length.");
+        }
+
+        long[] key = KEY_SCRATCH.get();
+        if (key.length < keyWords) {
+            key = new long[keyWords];
+            KEY_SCRATCH.set(key);
+        }
+        Arrays.fill(key, 0, keyWords, 0L);
+
+        for (int i = 0; i < numVars; i++) {
+            long bits = quantize(reals[off + i]) & 0xFFFFFFFFL;
+            key[i >>> 1] |= bits << ((i & 1) << 5);
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns the 32 bit key of a real value: the multiple of the quantum
+     * it is nearest to, or its bits when the quantum is zero.
+     *
+     * @param real the real value
+     * @return the key of the value
+     */
+    private int quantize(float real) {
+
+        if (quantum == 0.0f) {
+            return Float.floatToIntBits(real);
+        }
+
+        return Math.round(real / quantum);
+    }
+
+
+/*============================ Getters and Setters ===========================*/
+
+
+    /**
+     * @return the number of lookups that found a cached value
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find a cached value
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries evicted to make room for others
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of longs in each key
+     */
+    public int getKeyWords() {
+        return keyWords;
+    }
+
+    /**
+     * @return the quantum continuous real values are rounded to
+     */
+    public float getQuantum() {
+        return quantum;
+    }
+
+    @Override
+    public String toString() {
+        return "  Hits: " + getHits() +
+                "\n  Misses: " + getMisses() +
+                "\n  Evictions: " + getEvictions();
+    }
+
+
+/*============================== Nested Classes ==============================*/
+
+
+    /**
+     * One lock striped part of the cache, an open addressing table with
+     * linear probing and CLOCK eviction. Every method locks the stripe.
+     */
+    private static final class Stripe {
+
+        /* The number of longs in each key */
+        private final int keyWords;
+
+        /* The number of slots minus one, the slot count being a power of
+           two */
+        private final int mask;
+
+        /* The number of entries the stripe may hold, at most 3/4 of the
+           slots so probe runs stay short */
+        private final int maxSize;
+
+        /* The key of each slot, keyWords longs per slot */
+        private final long[] keys;
+
+        /* The low 32 bits of the hash of each slot's key */
+        private final int[] hashes;
+
+        /* The objective value of each slot */
+        private final float[] values;
+
+        /* Whether each slot holds an entry */
+        private final boolean[] used;
+
+        /* The CLOCK referenced bit of each slot */
+        private final boolean[] referenced;
+
+        /* The number of entries held */
+        private int size;
+
+        /* The slot the CLOCK hand points at */
+        private int hand;
+
+        Stripe(int maxSize, int keyWords) {
+
+            int slots = Integer.highestOneBit(Math.max(2, maxSize * 4 / 3));
+            if (slots < maxSize * 4 / 3) {
+                slots <<= 1;
+            }
+
+            this.keyWords = keyWords;
+            this.maxSize = Math.min(maxSize, slots - 1);
+            mask = slots - 1;
+            keys = new long[slots * keyWords];
+            hashes = new int[slots];
+            values = new float[slots];
+            used = new boolean[slots];
+            referenced = new boolean[slots];
+        }
+
+        /**
+         * Returns the value of the given key, marking it as referenced.
+         *
+         * @return the value, or NaN if the key is absent
+         */
+        synchronized float get(long[] key, int off, int hash) {
+
+            int slot = find(key, off, hash);
+            if (slot < 0) {
+                return Float.NaN;
+            }
+            referenced[slot] = true;
+
+            return values[slot];
+        }
+
+        /**
+         * Stores the value of the given key, evicting an entry first if
+         * the stripe is full.
+         *
+         * @return true if an entry was evicted
+         */
+        synchronized boolean put(long[] key, int off, int hash,
+                float value) {
+
+            int slot = find(key, off, hash);
+            if (slot >= 0) {
+                values[slot] = value;
+                referenced[slot] = true;
+                return false;
+            }
+
+            boolean evicted = false;
+            if (size == maxSize) {
+                evict();
+                evicted = true;
+            }
+
+            slot = hash & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(key, off, keys, slot * keyWords, keyWords);
+            hashes[slot] = hash;
+            values[slot] = value;
+            used[slot] = true;
+            referenced[slot] = true;
+            size++;
+
+            return evicted;
+        }
+
+        synchronized void clear() {
+
+            Arrays.fill(used, false);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+
+        /**
+         * Returns the slot holding the given key, or -1 if it is absent.
+         */
+        private int find(long[] key, int off, int hash) {
+
+            for (int slot = hash & mask; used[slot];
+                    slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && keyEquals(slot, key, off)) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private boolean keyEquals(int slot, long[] key, int off) {
+
+            int base = slot * keyWords;
+            for (int i = 0; i < keyWords; i++) {
+                if (keys[base + i] != key[off + i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Advances the CLOCK hand to the first entry that has not been
+         * referenced since the hand last passed it, and removes it.
+         */
+        private void evict() {
+
+            while (true) {
+                if (used[hand]) {
+                    if (!referenced[hand]) {
+                        remove(hand);
+                        return;
+                    }
+                    referenced[hand] = false;
+                }
+                hand = (hand + 1) & mask;
+            }
+        }
+
+        /**
+         * Removes the entry in the given slot, shifting back any later
+         * entries of the probe run that would otherwise become
+         * unreachable.
+         */
+        private void remove(int slot) {
+
+            int hole = slot;
+
+            for (int next = (hole + 1) & mask; used[next];
+                    next = (next + 1) & mask) {
+
+                int home = hashes[next] & mask;
+                // The entry may fill the hole unless its home slot lies
+                // cyclically within (hole, next].
+                boolean stays = hole <= next ?
+                        (home > hole && home <= next) :
+                        (home > hole || home <= next);
+                if (!stays) {
+                    System.arraycopy(keys, next * keyWords, keys,
+                            hole * keyWords, keyWords);
+                    hashes[hole] = hashes[next];
+                    values[hole] = values[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+            }
+
+            used[hole] = false;
+            referenced[hole] = false;
+            size--;
+        }
+    }
+}
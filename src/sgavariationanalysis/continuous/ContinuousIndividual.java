@@ -4,9 +4,13 @@
  */
 package sgavariationanalysis.continuous;
 
+import sgavariationanalysis.cache.FitnessCache;
 import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -17,15 +21,32 @@ import java.util.stream.Collectors;
 public class ContinuousIndividual {
 
     
+/*============================== Static Variables ============================*/
+
+    
+    /* The number of times an evaluation of an individual was requested */
+    private static final LongAdder EVAL_REQUESTS = new LongAdder();
+    
+    /* The number of evaluations of individuals actually performed */
+    private static final LongAdder EVALUATIONS = new LongAdder();
+    
+    
 /*============================== Member Variables ============================*/
 
     
     /**
-     * The location, a list of continuous values representing the genes 
+     * The location, an array of continuous values representing the genes 
      * of the chromosomes (genotype). Each float represents a separate 
-     * variable. 
+     * variable. The array may be shared with other individuals, as the 
+     * genotype matrix of a population is, in which case the chromosome 
+     * starts at offset.
      */
-    private final ArrayList<Float> chromosome;
+    private final float[] chromosome;
+    
+    /**
+     * The index of the first variable of the chromosome within its array.
+     */
+    private final int offset;
 
     /**
      * The quality, the objective value, a float representing the evaluation 
@@ -39,6 +60,13 @@ public class ContinuousIndividual {
      * fitness.
      */
     private float fitTransValue;
+    
+    /**
+     * A flag indicating that the chromosome has changed since the values
+     * derived from it were last computed. The values are recomputed the
+     * next time one of them is read.
+     */
+    private boolean stale;
 
     /**
      * The relative fitness of the individual, the fitness (objective value) 
@@ -52,32 +80,53 @@ public class ContinuousIndividual {
     private final GATestFunction testFunction;
     
     /**
-     * The Random object to use for prn generation
+     * The stream to use for prn generation, shared with the individual's
+     * ancestors and descendants
+     */
+    private final RandomStream rand;
+    
+    /**
+     * The cache of objective values keyed by quantized real values, shared
+     * with the individual's ancestors and descendants, or null for none
      */
-    private final Random rand;
+    private final FitnessCache cache;
     
  
 /*================================ Constructors ==============================*/
 
     /**
      * Creates an individual with num variables and randomly generates a 
-     * chromosome.
+     * chromosome. The individual and its descendants draw from a stream
+     * seeded from the given generator.
      * 
      * @param testFunction the test function 
      * @param rand the pseudo-random number generator
      */
     public ContinuousIndividual(GATestFunction testFunction, Random rand) {
         
-        int num = testFunction.getNumVars();
-        int len = testFunction.getGenesPerVar();
-        chromosome = new ArrayList<>();
-        for (int vars = 0; vars < num; vars++) {
-            chromosome.add(vars, 0.0f);
-        }
+        this(testFunction, new RandomStream(rand.nextLong()), null);
+    }
+    
+    /**
+     * Creates an individual with num variables and randomly generates a 
+     * chromosome. The individual and its descendants look up their 
+     * objective values in the given cache before evaluating the test 
+     * function.
+     * 
+     * @param testFunction the test function 
+     * @param rand the pseudo-random number stream
+     * @param cache the fitness cache, or null for none
+     */
+    public ContinuousIndividual(GATestFunction testFunction, 
+            RandomStream rand, FitnessCache cache) {
+        
+        chromosome = new float[testFunction.getNumVars()];
+        offset = 0;
         this.testFunction = testFunction;
         this.rand = rand;
+        this.cache = cache;
         generateRandomChromosome();
-        updateValues();
+        invalidate();
         relFitness = 0.0f;
     }
     
@@ -91,14 +140,15 @@ public class ContinuousIndividual {
     public ContinuousIndividual(ArrayList<Float> chromosome,
             ContinuousIndividual parent) {
         int num = parent.getTestFunction().getNumVars();
-        int len = parent.getTestFunction().getGenesPerVar();
-        this.chromosome = new ArrayList<>();
+        this.chromosome = new float[num];
+        offset = 0;
         for (int vars = 0; vars < num; vars++) {
-            this.chromosome.add(vars, chromosome.get(vars));
+            this.chromosome[vars] = chromosome.get(vars);
         }
         this.testFunction = parent.getTestFunction();
         this.rand = parent.getRand();
-        updateValues();
+        this.cache = parent.cache;
+        invalidate();
         relFitness = 0;
     }
     
@@ -109,11 +159,39 @@ public class ContinuousIndividual {
      */
     public ContinuousIndividual(ContinuousIndividual toCopy) {
         
-        chromosome = new ArrayList<>();
-        chromosome.addAll(toCopy.getChromosome());
+        chromosome = Arrays.copyOfRange(toCopy.chromosome, toCopy.offset,
+                toCopy.offset + toCopy.getNumVars());
+        offset = 0;
         this.testFunction = toCopy.getTestFunction();
         this.rand = toCopy.getRand();
-        updateValues();
+        this.cache = toCopy.cache;
+        invalidate();
+        copyValues(toCopy);
+        relFitness = toCopy.relFitness;
+    }
+    
+    /**
+     * Creates an individual whose chromosome is the row of a genotype 
+     * matrix starting at the given offset. The individual is a view, so 
+     * changes made to the row through it, or to the matrix directly, are 
+     * seen by both. The individual's other properties are initialized 
+     * using the prototype values. The row is treated as empty until it is
+     * filled with {@link #copyFrom(ContinuousIndividual)} or 
+     * {@link #randomize()}, so no evaluation is requested for it here.
+     * 
+     * @param matrix the array holding the chromosome
+     * @param offset the offset of the first variable of the chromosome
+     * @param prototype the individual to inherit properties from
+     */
+    ContinuousIndividual(float[] matrix, int offset, 
+            ContinuousIndividual prototype) {
+        
+        chromosome = matrix;
+        this.offset = offset;
+        this.testFunction = prototype.getTestFunction();
+        this.rand = prototype.getRand();
+        this.cache = prototype.cache;
+        stale = true;
         relFitness = 0;
     }
     
@@ -123,7 +201,8 @@ public class ContinuousIndividual {
     
     public boolean isInBounds() {
         boolean res = true;
-        for (float real : chromosome) {
+        for (int i = offset; i < offset + getNumVars(); i++) {
+            float real = chromosome[i];
             if (real <= testFunction.getXLowerBound() ||
                     real >= testFunction.getXUpperBound()) {
                 res = false;
@@ -144,28 +223,111 @@ public class ContinuousIndividual {
     private void generateRandomChromosome() {
         
         
-        for (int i = 0; i < chromosome.size(); i++) {
+        for (int i = offset; i < offset + getNumVars(); i++) {
             
             int l = testFunction.getXLowerBound();
             int u = testFunction.getXUpperBound();
             
-            chromosome.set(i, rand.nextFloat() * (u - l) + l);
+            chromosome[i] = rand.nextFloat() * (u - l) + l;
         }
     }
 
     /**
      * Updates the real and objective values associated with this
-     * individual's chromosome.
+     * individual's chromosome. The objective value is taken from the 
+     * fitness cache when the chromosome is found there. With a quantized 
+     * cache, a miss is evaluated at the chromosome's snapped point.
      */
     private void updateValues() {
-        objValue = getTestFunction().calculateFitness(chromosome);
+        int numVars = getNumVars();
+        objValue = cache == null ? Float.NaN : 
+                cache.get(chromosome, offset, numVars);
+        if (Float.isNaN(objValue)) {
+            if (cache != null && cache.isQuantized()) {
+                objValue = getTestFunction().calculateFitness(
+                        cache.snap(chromosome, offset, numVars), 0, numVars);
+            }
+            else {
+                objValue = getTestFunction().calculateFitness(chromosome, 
+                        offset, numVars);
+            }
+            if (cache != null) {
+                cache.put(chromosome, offset, numVars, objValue);
+            }
+            EVALUATIONS.increment();
+        }
         fitTransValue = getTestFunction().getFitnessTransferral(objValue);
+        stale = false;
+    }
+    
+    /**
+     * Marks the objective values as stale so they are recomputed on their
+     * next access.
+     */
+    private void invalidate() {
+        stale = true;
+        EVAL_REQUESTS.increment();
+    }
+    
+    /**
+     * Recomputes the objective values if they are stale.
+     */
+    private void evaluateIfStale() {
+        if (stale) {
+            updateValues();
+        }
+    }
+    
+    /**
+     * Takes the objective values from the given individual, which must 
+     * have an identical chromosome, if they are up to date.
+     * 
+     * @param source the individual to copy the values from
+     */
+    private void copyValues(ContinuousIndividual source) {
+        if (!source.stale) {
+            objValue = source.objValue;
+            fitTransValue = source.fitTransValue;
+            stale = false;
+        }
     }
     
     
 /*============================ Getters and Setters ===========================*/
 
     
+    /**
+     * Returns the number of evaluations of the test function performed for
+     * continuous individuals. Values found in the fitness cache are not 
+     * counted.
+     * 
+     * @return the number of evaluations of continuous individuals performed
+     */
+    public static long getEvaluationCount() {
+        return EVALUATIONS.sum();
+    }
+    
+    /**
+     * Returns the number of evaluations of continuous individuals that were 
+     * requested by a change to, or copy of, a chromosome but never 
+     * performed, either because the values were not read before the next
+     * change, because they were copied from an up to date individual or 
+     * because they were found in the fitness cache.
+     * 
+     * @return the number of evaluations avoided
+     */
+    public static long getEvaluationsAvoided() {
+        return EVAL_REQUESTS.sum() - EVALUATIONS.sum();
+    }
+    
+    /**
+     * Resets the evaluation counters.
+     */
+    public static void resetEvaluationCounters() {
+        EVAL_REQUESTS.reset();
+        EVALUATIONS.reset();
+    }
+    
     /**
      * @return the number of variables represented in the chromosome
      */
@@ -173,35 +335,119 @@ public class ContinuousIndividual {
         return getTestFunction().getNumVars();
     }
     
+    /**
+     * @param index the index of the variable
+     * @return the variable
+     */
+    public float getVar(int index) {
+        return chromosome[offset + index];
+    }
+    
     /**
      * 
      * @param index
      * @param var 
      */
     public void setVar(int index, float var) {
-        chromosome.set(index, var);
+        chromosome[offset + index] = var;
+        invalidate();
+    }
+    
+    /**
+     * Copies the variables of the chromosome into the given array.
+     * 
+     * @param vars the array to store the variables in, at least 
+     *        getNumVars() long
+     */
+    public void getVars(float[] vars) {
+        System.arraycopy(chromosome, offset, vars, 0, getNumVars());
     }
     
     /**
-     * This method returns the chromosome as a single list of floats.
+     * Replaces the variables of the chromosome with the first getNumVars()
+     * values of the given array.
+     * 
+     * @param vars the array holding the new variables
+     */
+    public void setVars(float[] vars) {
+        System.arraycopy(vars, 0, chromosome, offset, getNumVars());
+        invalidate();
+    }
+    
+    /**
+     * This method returns the chromosome as a single list of floats. The
+     * list is a boxed copy, so {@link #getVars(float[])} should be 
+     * preferred where the values are only read.
      * 
      * @return the chromosome
      */
     public ArrayList<Float> getChromosome() {
         
-        ArrayList<Float> res = new ArrayList<>();
+        ArrayList<Float> res = new ArrayList<>(getNumVars());
         
         for (int vars = 0; vars < getNumVars(); vars++) {
-            res.add(vars, chromosome.get(vars));
+            res.add(vars, chromosome[offset + vars]);
         }
         
         return res;
     }
-
+    
+    /**
+     * Overwrites the chromosome with that of the given individual, taking
+     * its objective values as well if they are up to date. An evaluation 
+     * still outstanding on the source moves along with the chromosome 
+     * rather than being requested again.
+     * 
+     * @param source the individual to copy
+     */
+    void copyFrom(ContinuousIndividual source) {
+        
+        System.arraycopy(source.chromosome, source.offset, chromosome, 
+                offset, getNumVars());
+        stale = true;
+        copyValues(source);
+    }
+    
+    /**
+     * Replaces the chromosome with a new random one.
+     */
+    void randomize() {
+        
+        generateRandomChromosome();
+        invalidate();
+    }
+    
+    /**
+     * Returns the array backing this individual's chromosome, which starts
+     * at {@link #getOffset()}. The array is not copied, so changes made to
+     * it must be followed by a call to {@link #genotypeChanged()}.
+     * 
+     * @return the array holding the chromosome
+     */
+    float[] getGenes() {
+        return chromosome;
+    }
+    
+    /**
+     * @return the offset of the chromosome within its array
+     */
+    int getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Notifies the individual that its chromosome has been modified in 
+     * place.
+     */
+    void genotypeChanged() {
+        invalidate();
+    }
+    
     /**
      * @return the objValue
      */
     public float getObjValue() {
+        evaluateIfStale();
         return objValue;
     }
 
@@ -209,6 +455,7 @@ public class ContinuousIndividual {
      * @return the fitTransValue
      */
     public float getFitTransValue() {
+        evaluateIfStale();
         return fitTransValue;
     }
 
@@ -216,6 +463,7 @@ public class ContinuousIndividual {
      * @param fitTransValue the fitTransValue to set
      */
     public void setFitTransValue(float fitTransValue) {
+        evaluateIfStale();
         this.fitTransValue = fitTransValue;
     }
 
@@ -243,7 +491,7 @@ public class ContinuousIndividual {
     /**
      * @return the rand
      */
-    public Random getRand() {
+    public RandomStream getRand() {
         return rand;
     }
     
@@ -252,14 +500,14 @@ public class ContinuousIndividual {
         
         String res = "";
         
-        res += "  Objective Value: " + objValue;
+        res += "  Objective Value: " + getObjValue();
         res += "\n  Real Values: [";
-        res += chromosome.stream()
+        res += getChromosome().stream()
                 .map((value) -> "" + value)
                 .collect(Collectors.joining(", "));
         res += "]\n  Relative Fitness: " + relFitness;
         if (!testFunction.isMaxProblem()) {
-            res += "\n  Fitness Transferral: " + fitTransValue;
+            res += "\n  Fitness Transferral: " + getFitTransValue();
         }
         
         return res;
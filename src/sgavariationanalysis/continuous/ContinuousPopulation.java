@@ -6,38 +6,87 @@ package sgavariationanalysis.continuous;
 
 import java.util.ArrayList;
 import java.util.Random;
+import sgavariationanalysis.GAConfig;
 import sgavariationanalysis.SGAVariationAnalysis;
+import sgavariationanalysis.cache.FitnessCache;
+import sgavariationanalysis.evaluation.ParallelEvaluator;
 import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+import sgavariationanalysis.selection.AliasRouletteWheel;
+import sgavariationanalysis.selection.CumulativeRouletteWheel;
+import sgavariationanalysis.selection.RouletteWheel;
 
 /**
- * A class representing a continuous population in a GA.
+ * A class representing a continuous population in a GA. The population is
+ * stored as a structure of arrays: the chromosomes of every individual are
+ * the rows of one flat genotype matrix, with numVars floats per row, and 
+ * the objective, fitness transferral and relative fitness values are held
+ * in parallel columns indexed as the population. The individuals returned
+ * by getPopulation are views onto the rows of the matrix.
  * 
  * @author Brett Crawford <brett.crawford@temple.edu>
  */
 public class ContinuousPopulation {
     
     
-    private static final Random RAND = SGAVariationAnalysis.RAND;
-        
-    
 /*============================== Member Variables ============================*/
 
     
-    /* The population of individuals */
-    private final ArrayList<ContinuousIndividual> population;
+    /* The number of variables in each row of the genotype matrices */
+    private final int numVars;
+    
+    /* The genotype matrix of the population, one row per individual */
+    private float[] genotypes;
+    
+    /* The genotype matrix the next generation is built in before replacing
+       genotypes */
+    private float[] nextGenotypes;
+    
+    /* The population of individuals, views onto the rows of genotypes */
+    private ArrayList<ContinuousIndividual> population;
     
-    /* The mating pools of individuals */
-    private final ArrayList<ContinuousIndividual> matingPool;
+    /* The views onto the rows of nextGenotypes */
+    private ArrayList<ContinuousIndividual> nextPopulation;
+    
+    /* The objective value of each individual, indexed as the population */
+    private final float[] objValues;
+    
+    /* The fitness transferral of each individual, indexed as the 
+       population */
+    private final float[] fitTransValues;
+    
+    /* An individual holding the third candidate of the linear crossover */
+    private final ContinuousIndividual spare;
+    
+    /* The mating pool, the indices of the selected individuals within the
+       population. Parents are read from the population in place. */
+    private final int[] matingPool;
     
     /* The id of the crossover variation method */
     private final int crossoverId;
     
+    /* The relative fitness of each individual, indexed as the population */
+    private final float[] relFitness;
+    
+    /* The roulette wheel used for selection, rebuilt each generation */
+    private final RouletteWheel wheel;
+    
+    /* The pseudo-random number stream used for selection */
+    private final RandomStream rand;
+    
+    /* The configuration of the run */
+    private final GAConfig config;
+    
+    /* The evaluator of each generation, or null to evaluate serially */
+    private final ParallelEvaluator evaluator;
+    
      
 /*================================ Constructors ==============================*/
 
     /**
      * Creates a population using the parameters specified in the given
-     * fitness function.
+     * fitness function. The population draws from a stream seeded from 
+     * the given generator.
      * 
      * @param testFunction the fitness function to use
      * @param rand the pseudo-random number generator
@@ -46,16 +95,70 @@ public class ContinuousPopulation {
     public ContinuousPopulation(GATestFunction testFunction, Random rand,
             int crossoverId) {
         
-        population = new ArrayList<>();
-        matingPool = new ArrayList<>();
-        this.crossoverId = crossoverId;
+        this(testFunction, new RandomStream(rand.nextLong()), crossoverId, 
+                null);
+    }
+    
+    /**
+     * Creates a population using the parameters specified in the given
+     * fitness function, whose individuals look up their objective values
+     * in the given cache before evaluating the function.
+     * 
+     * @param testFunction the fitness function to use
+     * @param rand the pseudo-random number stream
+     * @param crossoverId
+     * @param cache the fitness cache, or null for none
+     */
+    public ContinuousPopulation(GATestFunction testFunction, 
+            RandomStream rand, int crossoverId, FitnessCache cache) {
         
-        for (int i = 0; i < SGAVariationAnalysis.POP_SIZE; i++) {
-            population.add(i, new ContinuousIndividual(testFunction, rand));
-        }
+        this(testFunction, rand, crossoverId, SGAVariationAnalysis.CONFIG, 
+                cache, null);
+    }
+    
+    /**
+     * Creates a population using the parameters specified in the given
+     * fitness function, whose individuals look up their objective values
+     * in the given cache before evaluating the function. The individuals
+     * of each generation are evaluated in parallel by the given evaluator
+     * if the function is thread-safe. The population is sized, and its 
+     * variation is parameterized, by the given configuration.
+     * 
+     * @param testFunction the fitness function to use
+     * @param rand the pseudo-random number stream
+     * @param crossoverId
+     * @param config the configuration of the run
+     * @param cache the fitness cache, or null for none
+     * @param evaluator the parallel evaluator, or null for none
+     */
+    public ContinuousPopulation(GATestFunction testFunction, 
+            RandomStream rand, int crossoverId, GAConfig config, 
+            FitnessCache cache, ParallelEvaluator evaluator) {
+        
+        int popSize = config.getPopSize();
+        ContinuousIndividual first = 
+                new ContinuousIndividual(testFunction, rand, cache);
+        
+        numVars = testFunction.getNumVars();
+        genotypes = new float[popSize * numVars];
+        nextGenotypes = new float[popSize * numVars];
+        population = createViews(genotypes, first);
+        nextPopulation = createViews(nextGenotypes, first);
+        spare = new ContinuousIndividual(new float[numVars], 0, first);
+        objValues = new float[popSize];
+        fitTransValues = new float[popSize];
+        matingPool = new int[popSize];
+        this.crossoverId = crossoverId;
+        relFitness = new float[popSize];
+        wheel = config.isAliasSelection() ?
+                new AliasRouletteWheel() : new CumulativeRouletteWheel();
+        this.rand = rand;
+        this.config = config;
+        this.evaluator = testFunction.isThreadSafe() ? evaluator : null;
         
-        for (int i = 0; i < SGAVariationAnalysis.POP_SIZE; i++) {
-            matingPool.add(i, null);
+        population.get(0).copyFrom(first);
+        for (int i = 1; i < popSize; i++) {
+            population.get(i).randomize();
         }
         
         calcRelFitness();
@@ -64,24 +167,59 @@ public class ContinuousPopulation {
     
 /*============================== Private Methods =============================*/
   
+    /**
+     * Creates a view onto each row of the given genotype matrix.
+     * 
+     * @param matrix the genotype matrix
+     * @param prototype the individual the views inherit properties from
+     * @return the list of views, indexed as the rows
+     */
+    private ArrayList<ContinuousIndividual> createViews(float[] matrix, 
+            ContinuousIndividual prototype) {
+        
+        int popSize = matrix.length / numVars;
+        ArrayList<ContinuousIndividual> res = new ArrayList<>(popSize);
+        
+        for (int i = 0; i < popSize; i++) {
+            res.add(new ContinuousIndividual(matrix, i * numVars, prototype));
+        }
+        
+        return res;
+    }
+    
     /**
      * Calculates the relative fitness of each individual in the population.
      * If the fitness function reports maximum problem, the objective (fitness)
      * value is used in the calculations. If the fitness function reports a 
      * minimum problem, the fitness transferral value is used in the
-     * calculation.
+     * calculation. The objective and fitness transferral columns are filled
+     * in the same pass, and the roulette wheel is then rebuilt from the 
+     * relative fitness values. With an evaluator, the individuals still 
+     * awaiting evaluation are first evaluated in parallel.
      */
     private void calcRelFitness() {
         
+        int popSize = population.size();
         float totalFitness = 0;
         
-        for (ContinuousIndividual ci : population) {
-            totalFitness += ci.getFitTransValue();
+        if (evaluator != null) {
+            ArrayList<ContinuousIndividual> current = population;
+            evaluator.forEach(popSize, i -> current.get(i).getObjValue());
         }
         
-        for (ContinuousIndividual ci : population) {
-            ci.setRelFitness(ci.getFitTransValue() / totalFitness);
+        for (int i = 0; i < popSize; i++) {
+            ContinuousIndividual ci = population.get(i);
+            objValues[i] = ci.getObjValue();
+            fitTransValues[i] = ci.getFitTransValue();
+            totalFitness += fitTransValues[i];
         }
+        
+        for (int i = 0; i < popSize; i++) {
+            relFitness[i] = fitTransValues[i] / totalFitness;
+            population.get(i).setRelFitness(relFitness[i]);
+        }
+        
+        wheel.build(relFitness, popSize);
     }
            
     
@@ -92,24 +230,13 @@ public class ContinuousPopulation {
      * uses the relative fitness values to determine the size of each
      * individual's "slice" of the roulette wheel. Selection is done
      * with replacement, meaning an individual can be selected from the 
-     * population into the mating pool multiple times.
+     * population into the mating pool multiple times. The wheel is built
+     * by calcRelFitness once per generation.
      */
     public void rwSelect() {
         
-        for (int i = 0; i < matingPool.size(); i++) {
-            
-            float select = RAND.nextFloat();
-            float sliceLow = 0.0f;
-            float sliceHigh;
-            
-            for (ContinuousIndividual ci : population) {
-                sliceHigh = sliceLow + ci.getRelFitness();
-                if (select >= sliceLow && select <= sliceHigh) {
-                    matingPool.set(i, new ContinuousIndividual(ci));
-                    break;
-                }
-                sliceLow = sliceHigh;
-            }
+        for (int i = 0; i < matingPool.length; i++) {
+            matingPool[i] = wheel.select(rand);
         }
     }
     
@@ -118,58 +245,60 @@ public class ContinuousPopulation {
      * generation. This method mates adjacent individuals within the mating
      * pool list (i.e., 0 and 1, 2 and 3, etc...). After performing the 
      * crossover operation, each child individual undergoes the mutation 
-     * operation.
+     * operation. The parents are read from the current population in place
+     * and the children are written directly into the rows of the next 
+     * genotype matrix, which replaces the current one once the whole 
+     * generation is built. The two matrices and their views are allocated 
+     * once, so no individuals are created per generation.
      */
     public void reproduce() {
         
-        population.stream().forEach((ci) -> {
-            ci = null;
-        });
-        
-        for (int i = 0; i < matingPool.size(); i += 2) {
+        for (int i = 0; i < matingPool.length; i += 2) {
             
-            ContinuousIndividual parentA = matingPool.get(i);
-            ContinuousIndividual parentB = matingPool.get(i + 1);
-            ArrayList<ContinuousIndividual> children;
+            ContinuousIndividual parentA = population.get(matingPool[i]);
+            ContinuousIndividual parentB = population.get(matingPool[i + 1]);
+            ContinuousIndividual childA = nextPopulation.get(i);
+            ContinuousIndividual childB = nextPopulation.get(i + 1);
             
             switch(crossoverId) {
                 case ContinuousVariation.WAC:
-                     children = ContinuousVariation
-                             .arithmeticCrossover(parentA, parentB, false);
+                    ContinuousVariation.arithmeticCrossover(
+                            parentA, parentB, childA, childB, false, config);
                     break;
                 case ContinuousVariation.LAC:
-                    children = ContinuousVariation
-                            .arithmeticCrossover(parentA, parentB, true);
+                    ContinuousVariation.arithmeticCrossover(
+                            parentA, parentB, childA, childB, true, config);
                     break;
                 case ContinuousVariation.LC:
-                    children = ContinuousVariation
-                            .linearCrossover(parentA, parentB);
+                    ContinuousVariation.linearCrossover(
+                            parentA, parentB, childA, childB, spare, config);
                     break;
                 case ContinuousVariation.HC:
-                    children = ContinuousVariation
-                            .heuristicCrossover(parentA, parentB);
+                    ContinuousVariation.heuristicCrossover(
+                            parentA, parentB, childA, childB, config);
                     break;
                 case ContinuousVariation.BC:
-                    children = ContinuousVariation
-                            .blendCrossover(parentA, parentB);
+                    ContinuousVariation.blendCrossover(
+                            parentA, parentB, childA, childB, config);
                     break;
                 default:
                     System.out.println("ContinuousPopulation: Invalid id. "
                             + "Using WAC.");
-                    children = ContinuousVariation
-                            .arithmeticCrossover(parentA, parentB, false);
+                    ContinuousVariation.arithmeticCrossover(
+                            parentA, parentB, childA, childB, false, config);
             }
             
-            ContinuousVariation.uniformMutation(children.get(0));
-            ContinuousVariation.uniformMutation(children.get(1));
-            
-            population.set(i, children.get(0));
-            population.set(i + 1, children.get(1));
+            ContinuousVariation.uniformMutation(childA, config);
+            ContinuousVariation.uniformMutation(childB, config);
         }
         
-        matingPool.stream().forEach((ci) -> {
-            ci = null;
-        });
+        float[] tmpGenotypes = genotypes;
+        genotypes = nextGenotypes;
+        nextGenotypes = tmpGenotypes;
+        
+        ArrayList<ContinuousIndividual> tmp = population;
+        population = nextPopulation;
+        nextPopulation = tmp;
         
         calcRelFitness();
     }
@@ -178,6 +307,12 @@ public class ContinuousPopulation {
 /*============================ Getters and Setters ===========================*/
 
     /**
+     * Returns the individuals of the population. Each is a view onto a row
+     * of a genotype matrix that is reused by the second following call to
+     * reproduce, so an individual that must be kept longer should be 
+     * copied with 
+     * {@link ContinuousIndividual#ContinuousIndividual(ContinuousIndividual)}.
+     * 
      * @return the population
      */
     public ArrayList<ContinuousIndividual> getPopulation() {
@@ -186,10 +321,58 @@ public class ContinuousPopulation {
     }
     
     /**
+     * Returns the objective value of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the objective values
+     */
+    public float[] getObjValues() {
+        
+        return objValues;
+    }
+    
+    /**
+     * Returns the fitness transferral of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the fitness transferral values
+     */
+    public float[] getFitTransValues() {
+        
+        return fitTransValues;
+    }
+    
+    /**
+     * Returns the relative fitness of each individual, indexed as the 
+     * population. The array is owned by the population and is refilled
+     * each generation.
+     * 
+     * @return the relative fitness values
+     */
+    public float[] getRelFitness() {
+        
+        return relFitness;
+    }
+    
+    /**
+     * Returns the individuals currently selected into the mating pool. The
+     * list is built on each call from the pool's indices, which refer to 
+     * the current population, so it is only meaningful between a call to
+     * rwSelect and the following call to reproduce.
+     * 
      * @return the mating pool
      */
     public ArrayList<ContinuousIndividual> getMatingPool() {
         
-        return matingPool;
+        ArrayList<ContinuousIndividual> res = 
+                new ArrayList<>(matingPool.length);
+        
+        for (int index : matingPool) {
+            res.add(population.get(index));
+        }
+        
+        return res;
     }
 }
@@ -5,8 +5,9 @@
 package sgavariationanalysis.continuous;
 
 import java.util.ArrayList;
-import java.util.Random;
+import sgavariationanalysis.GAConfig;
 import sgavariationanalysis.SGAVariationAnalysis;
+import sgavariationanalysis.random.RandomStream;
 
 /**
  *
@@ -15,11 +16,18 @@ import sgavariationanalysis.SGAVariationAnalysis;
 public class ContinuousVariation {
     
     
-    private static final Random RAND = SGAVariationAnalysis.RAND;
-    private static final float CROSSOVER_PROB = 
-            SGAVariationAnalysis.CROSSOVER_PROB;
-    private static final float MUTATION_PROB = 
-            SGAVariationAnalysis.MUTATION_PROB;
+    /* The kernels that perform the per-variable arithmetic */
+    private static final VariationKernels KERNELS = 
+            VariationKernels.preferred();
+    
+    /* Reusable working buffers, one set per thread: the two working 
+       chromosomes of blend crossover and the per-variable draws of local
+       arithmetic crossover and mutation */
+    private static final ThreadLocal<float[][]> SCRATCH = 
+            ThreadLocal.withInitial(() -> new float[3][0]);
+    
+    /* The index of the scratch buffer holding per-variable draws */
+    private static final int DRAWS = 2;
     
     
 /*================================== Constants ===============================*/
@@ -58,37 +66,71 @@ public class ContinuousVariation {
             ContinuousIndividual parentB,
             boolean isLocal) {
         
-        ArrayList<ContinuousIndividual> res = new ArrayList<>(2);
-        ArrayList<Float> chromoChildA = parentA.getChromosome();
-        ArrayList<Float> chromoChildB = parentB.getChromosome();
+        ContinuousIndividual childA = new ContinuousIndividual(parentA);
+        ContinuousIndividual childB = new ContinuousIndividual(parentB);
+        
+        arithmeticCrossover(parentA, parentB, childA, childB, isLocal,
+                SGAVariationAnalysis.CONFIG);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * whole arithmetic crossover method into the given child individuals.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param isLocal the flag for using local variation
+     * @param config the configuration of the run
+     */
+    static void arithmeticCrossover(
+            ContinuousIndividual parentA,
+            ContinuousIndividual parentB,
+            ContinuousIndividual childA,
+            ContinuousIndividual childB,
+            boolean isLocal,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            float a = RAND.nextFloat();
+            int numVars = parentA.getNumVars();
+            float[] chromoParentA = parentA.getGenes();
+            float[] chromoParentB = parentB.getGenes();
+            float[] chromoChildA = childA.getGenes();
+            float[] chromoChildB = childB.getGenes();
+            int offParentA = parentA.getOffset();
+            int offParentB = parentB.getOffset();
+            int offChildA = childA.getOffset();
+            int offChildB = childB.getOffset();
+            
+            float a = rand.nextFloat();
             float b = 1.0f - a;
             
-            for (int i = 0; i < chromoChildA.size(); i++) {
-                
-                float x1 = chromoChildA.get(i);
-                float x2 = chromoChildB.get(i);
-                
-                if (isLocal) {
-                    a = RAND.nextFloat();
-                    b = 1.0f - a;
+            if (isLocal) {
+                float[] weights = scratch(DRAWS, numVars);
+                for (int i = 0; i < numVars; i++) {
+                    weights[i] = rand.nextFloat();
                 }
-                
-                float y1 = a * x1 + b * x2;
-                float y2 = b * x1 + a * x2;
-                
-                chromoChildA.set(i, y1);
-                chromoChildB.set(i, y2);
+                KERNELS.localArithmetic(chromoParentA, offParentA, 
+                        chromoParentB, offParentB, chromoChildA, offChildA,
+                        chromoChildB, offChildB, weights, numVars);
+            }
+            else {
+                KERNELS.arithmetic(chromoParentA, offParentA, 
+                        chromoParentB, offParentB, chromoChildA, offChildA,
+                        chromoChildB, offChildB, a, b, numVars);
             }
+            
+            childA.genotypeChanged();
+            childB.genotypeChanged();
         }
-        
-        res.add(0, new ContinuousIndividual(chromoChildA, parentA));
-        res.add(1, new ContinuousIndividual(chromoChildB, parentB));
-        
-        return res;
     }
     
     /**
@@ -103,48 +145,68 @@ public class ContinuousVariation {
             ContinuousIndividual parentA,
             ContinuousIndividual parentB) {
         
-        ArrayList<ContinuousIndividual> res = new ArrayList<>(2);
         ContinuousIndividual childA = new ContinuousIndividual(parentA);
         ContinuousIndividual childB = new ContinuousIndividual(parentB);
-        ContinuousIndividual childC;
+        ContinuousIndividual childC = new ContinuousIndividual(parentA);
+        
+        linearCrossover(parentA, parentB, childA, childB, childC,
+                SGAVariationAnalysis.CONFIG);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * linear crossover method into the given child individuals. The 
+     * operator creates three candidates and keeps the best two, so a third 
+     * individual is needed to hold the extra candidate.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param childC the individual to hold the third candidate
+     * @param config the configuration of the run
+     */
+    static void linearCrossover(
+            ContinuousIndividual parentA,
+            ContinuousIndividual parentB,
+            ContinuousIndividual childA,
+            ContinuousIndividual childB,
+            ContinuousIndividual childC,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            ArrayList<Float> chromoChildA = parentA.getChromosome();
-            ArrayList<Float> chromoChildB = parentB.getChromosome();
-            ArrayList<Float> chromoChildC = new ArrayList<>();
+            int numVars = parentA.getNumVars();
+            float[] chromoParentA = parentA.getGenes();
+            float[] chromoParentB = parentB.getGenes();
+            float[] chromoChildA = childA.getGenes();
+            float[] chromoChildB = childB.getGenes();
+            float[] chromoChildC = childC.getGenes();
+            int offParentA = parentA.getOffset();
+            int offParentB = parentB.getOffset();
+            int offChildA = childA.getOffset();
+            int offChildB = childB.getOffset();
+            int offChildC = childC.getOffset();
             
-            float a = RAND.nextFloat();
+            float a = rand.nextFloat();
             float b = 1.0f - a;
             
-            for (int i = 0; i < chromoChildA.size(); i++) {
-                
-                int l = parentA.getTestFunction().getXLowerBound();
-                int u = parentA.getTestFunction().getXLowerBound();
-                
-                float x1 = chromoChildA.get(i);
-                float x2 = chromoChildB.get(i);
-                
-                float y1 = 0.5f * x1 + 0.5f * x2;
-                float y2 = 1.5f * x1 - 0.5f * x2;
-                float y3 = - 0.5f * x1 + 1.5f * x2;
-                
-                if (y2 <= l || y2 >= u) {
-                    y2 = y1;
-                }
-                if (y3 <= l || y3 >= u) {
-                    y3 = y1;
-                }
-                
-                chromoChildA.set(i, y1);
-                chromoChildB.set(i, y2);
-                chromoChildC.add(i, y3);
-            }
+            int l = parentA.getTestFunction().getXLowerBound();
+            int u = parentA.getTestFunction().getXLowerBound();
             
+            KERNELS.linear(chromoParentA, offParentA, chromoParentB, 
+                    offParentB, chromoChildA, offChildA, chromoChildB, 
+                    offChildB, chromoChildC, offChildC, l, u, numVars);
             
-            childA = new ContinuousIndividual(chromoChildA, parentA);
-            childB = new ContinuousIndividual(chromoChildB, parentA);
-            childC = new ContinuousIndividual(chromoChildC, parentA);
+            childA.genotypeChanged();
+            childB.genotypeChanged();
+            childC.genotypeChanged();
             
             float totalFitness = childA.getFitTransValue() +
                     childB.getFitTransValue() + childC.getFitTransValue();
@@ -154,19 +216,14 @@ public class ContinuousVariation {
             float relFitC = childC.getFitTransValue() / totalFitness;
             
             if (relFitA <= relFitB && relFitA <= relFitC) {
-                childA = childB;
-                childB = childC;
+                childA.copyFrom(childB);
+                childB.copyFrom(childC);
             }
             else if (relFitB <= relFitA && relFitB <= relFitC) {
-                childB = childC;
+                childB.copyFrom(childC);
             }
             
         }
-        
-        res.add(0, childA);
-        res.add(1, childB);
-        
-        return res;
     }
     
     /**
@@ -181,21 +238,52 @@ public class ContinuousVariation {
             ContinuousIndividual parentA,
             ContinuousIndividual parentB) {
         
-        ArrayList<ContinuousIndividual> res = new ArrayList<>(2);
         ContinuousIndividual childA = new ContinuousIndividual(parentA);
         ContinuousIndividual childB = new ContinuousIndividual(parentB);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        heuristicCrossover(parentA, parentB, childA, childB,
+                SGAVariationAnalysis.CONFIG);
+        
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * heuristic crossover method into the given child individuals.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param config the configuration of the run
+     */
+    static void heuristicCrossover(
+            ContinuousIndividual parentA,
+            ContinuousIndividual parentB,
+            ContinuousIndividual childA,
+            ContinuousIndividual childB,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            ArrayList<Float> chromoChildA = parentA.getChromosome();
-            ArrayList<Float> chromoChildB = parentB.getChromosome();
+            // The children start as copies of their parents and each is
+            // rebuilt from the current values of both children in turn.
+            int numVars = parentA.getNumVars();
+            float[] chromoChildA = childA.getGenes();
+            float[] chromoChildB = childB.getGenes();
+            int offA = childA.getOffset();
+            int offB = childB.getOffset();
             
             do {
                 
-                float b1 = RAND.nextFloat() * 0.4f + 0.8f;
-                for (int i = 0; i < chromoChildA.size(); i++) {
-                    float x1 = chromoChildA.get(i);
-                    float x2 = chromoChildB.get(i);
+                float b1 = rand.nextFloat() * 0.4f + 0.8f;
+                for (int i = 0; i < numVars; i++) {
+                    float x1 = chromoChildA[offA + i];
+                    float x2 = chromoChildB[offB + i];
                     float y;
                     
                     if (parentA.getFitTransValue() > parentB.getFitTransValue()) {
@@ -204,17 +292,17 @@ public class ContinuousVariation {
                     else {
                         y = x1 + b1 * (x2 - x1);
                     }
-                    chromoChildA.set(i, y);
-                    childA = new ContinuousIndividual(chromoChildA, parentA);
+                    chromoChildA[offA + i] = y;
                 } 
+                childA.genotypeChanged();
             } while (!childA.isInBounds());
             
             do {
                 
-                float b2 = RAND.nextFloat() * 0.4f + 0.8f;
-                for (int i = 0; i < chromoChildA.size(); i++) {
-                    float x1 = chromoChildA.get(i);
-                    float x2 = chromoChildB.get(i);
+                float b2 = rand.nextFloat() * 0.4f + 0.8f;
+                for (int i = 0; i < numVars; i++) {
+                    float x1 = chromoChildA[offA + i];
+                    float x2 = chromoChildB[offB + i];
                     float y;
                     
                     if (parentA.getFitTransValue() > parentB.getFitTransValue()) {
@@ -223,16 +311,11 @@ public class ContinuousVariation {
                     else {
                         y = x1 + b2 * (x2 - x1);
                     }
-                    chromoChildB.set(i, y);
-                    childB = new ContinuousIndividual(chromoChildB, parentB);
+                    chromoChildB[offB + i] = y;
                 } 
+                childB.genotypeChanged();
             } while (!childB.isInBounds());
         }
-        
-        res.add(0, childA);
-        res.add(1, childB);
-        
-        return res;
     }
     
     /**
@@ -247,67 +330,160 @@ public class ContinuousVariation {
             ContinuousIndividual parentA,
             ContinuousIndividual parentB) {
         
-        ArrayList<ContinuousIndividual> res = new ArrayList<>(2);
         ContinuousIndividual childA = new ContinuousIndividual(parentA);
         ContinuousIndividual childB = new ContinuousIndividual(parentB);
         
-        if (RAND.nextFloat() < CROSSOVER_PROB) {
+        blendCrossover(parentA, parentB, childA, childB,
+                SGAVariationAnalysis.CONFIG);
+        
+        return pair(childA, childB);
+    }
+    
+    /**
+     * Writes the two children generated from the given parents using a 
+     * blend crossover method into the given child individuals.
+     * 
+     * @param parentA the first parent
+     * @param parentB the second parent
+     * @param childA the individual to write the first child into
+     * @param childB the individual to write the second child into
+     * @param config the configuration of the run
+     */
+    static void blendCrossover(
+            ContinuousIndividual parentA,
+            ContinuousIndividual parentB,
+            ContinuousIndividual childA,
+            ContinuousIndividual childB,
+            GAConfig config) {
+        
+        childA.copyFrom(parentA);
+        childB.copyFrom(parentB);
+        
+        RandomStream rand = childA.getRand();
+        if (rand.nextFloat() < config.getCrossoverProb()) {
             
-            ArrayList<Float> chromoChildA = parentA.getChromosome();
-            ArrayList<Float> chromoChildB = parentB.getChromosome();
+            int numVars = parentA.getNumVars();
+            float[] chromoChildA = scratch(0, numVars);
+            float[] chromoChildB = scratch(1, numVars);
+            parentA.getVars(chromoChildA);
+            parentB.getVars(chromoChildB);
             
             float a = 0.50f;
             
-            for (int i = 0; i < chromoChildA.size(); i++) {
+            for (int i = 0; i < numVars; i++) {
 
-                if (chromoChildA.get(i) > chromoChildB.get(i)) {
-                    ArrayList<Float> chromoTemp = chromoChildA;
+                if (chromoChildA[i] > chromoChildB[i]) {
+                    float[] chromoTemp = chromoChildA;
                     chromoChildA = chromoChildB;
                     chromoChildB = chromoTemp;
                 }
 
-                float x1 = chromoChildA.get(i);
-                float x2 = chromoChildB.get(i);
+                float x1 = chromoChildA[i];
+                float x2 = chromoChildB[i];
                 float l = x1 - a * (x2 - x1);
                 float u = x2 + a * (x2 - x1);
                 float y;
 
                 do {
-                    y = RAND.nextFloat() * (u - l) + l;
+                    y = rand.nextFloat() * (u - l) + l;
                 } while (y <= parentA.getTestFunction().getXLowerBound() ||
                         y >= parentA.getTestFunction().getXUpperBound());
 
-                chromoChildA.set(i, y);
+                chromoChildA[i] = y;
             } 
 
-            childA = new ContinuousIndividual(chromoChildA, parentA);
+            childA.setVars(chromoChildA);
             
-            for (int i = 0; i < chromoChildB.size(); i++) {
+            for (int i = 0; i < numVars; i++) {
 
-                if (chromoChildB.get(i) > chromoChildA.get(i)) {
-                    ArrayList<Float> chromoTemp = chromoChildB;
+                if (chromoChildB[i] > chromoChildA[i]) {
+                    float[] chromoTemp = chromoChildB;
                     chromoChildB = chromoChildA;
                     chromoChildA = chromoTemp;
                 }
 
-                float x1 = chromoChildB.get(i);
-                float x2 = chromoChildA.get(i);
+                float x1 = chromoChildB[i];
+                float x2 = chromoChildA[i];
                 float l = x1 - a * (x2 - x1);
                 float u = x2 + a * (x2 - x1);
                 float y;
 
                 do {
-                    y = RAND.nextFloat() * (u - l) + l;
+                    y = rand.nextFloat() * (u - l) + l;
                 } while (y <= parentB.getTestFunction().getXLowerBound() ||
                         y >= parentB.getTestFunction().getXUpperBound());
 
 
-                chromoChildB.set(i, y);
+                chromoChildB[i] = y;
             } 
             
-            childB = new ContinuousIndividual(chromoChildB, parentB);
+            childB.setVars(chromoChildB);
         }
+    }
+    
+    /**
+     * Performs a mutation on the given individual, writing the mutated 
+     * variables directly into its chromosome and re-evaluating it once.
+     * The mutation probability is that of the default configuration.
+     * 
+     * @param individual the individual to be mutated
+     */
+    public static void uniformMutation(ContinuousIndividual individual) {
         
+        uniformMutation(individual, SGAVariationAnalysis.CONFIG);
+    }
+    
+    /**
+     * Performs a mutation on the given individual with the mutation 
+     * probability of the given configuration.
+     * 
+     * @param individual the individual to be mutated
+     * @param config the configuration of the run
+     */
+    public static void uniformMutation(ContinuousIndividual individual,
+            GAConfig config) {
+        
+        float mutationProb = config.getMutationProb();
+        RandomStream rand = individual.getRand();
+        int numVars = individual.getNumVars();
+        float[] draws = scratch(DRAWS, numVars);
+        boolean mutated = false;
+        
+        for (int i = 0; i < numVars; i++) {
+            if (rand.nextFloat() < mutationProb) {
+                draws[i] = rand.nextFloat();
+                mutated = true;
+            }
+            else {
+                draws[i] = -1.0f;
+            }
+        }
+        
+        if (mutated) {
+            float l = individual.getTestFunction().getXLowerBound();
+            float u = individual.getTestFunction().getXUpperBound();
+            
+            KERNELS.uniformMutation(individual.getGenes(), 
+                    individual.getOffset(), draws, l, u, numVars);
+            individual.genotypeChanged();
+        }
+    }
+    
+    
+/*============================== Helper Methods ==============================*/
+
+    
+    /**
+     * Returns a new list holding the two given children.
+     * 
+     * @param childA the first child
+     * @param childB the second child
+     * @return a list containing two children
+     */
+    private static ArrayList<ContinuousIndividual> pair(
+            ContinuousIndividual childA, ContinuousIndividual childB) {
+        
+        ArrayList<ContinuousIndividual> res = new ArrayList<>(2);
         res.add(0, childA);
         res.add(1, childB);
         
@@ -315,20 +491,21 @@ public class ContinuousVariation {
     }
     
     /**
-     * Performs a mutation on the given individual.
+     * Returns one of the working chromosome buffers of the calling thread,
+     * grown to hold at least the given number of variables. The buffers 
+     * are reused by every call on the same thread.
      * 
-     * @param individual the individual to be mutated
+     * @param which the index of the buffer, 0 to 2
+     * @param numVars the number of variables the buffer must hold
+     * @return the buffer
      */
-    public static void uniformMutation(ContinuousIndividual individual) {
+    private static float[] scratch(int which, int numVars) {
         
-        for (int i = 0; i < individual.getChromosome().size(); i++) {
-            if (RAND.nextFloat() < MUTATION_PROB) {
-                float a = RAND.nextFloat();
-                float l = individual.getTestFunction().getXLowerBound();
-                float u = individual.getTestFunction().getXUpperBound();
-                
-                individual.setVar(i,  a * (u - l) + l);
-            }
+        float[][] buffers = SCRATCH.get();
+        if (buffers[which].length < numVars) {
+            buffers[which] = new float[numVars];
         }
+        
+        return buffers[which];
     }
 }
@@ -0,0 +1,88 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ScalarVariationKernels.java
+ */
+package sgavariationanalysis.continuous;
+
+/**
+ * The scalar variation kernels, one variable at a time. These are the
+ * reference for every other kernel set and the fallback on runtimes that
+ * cannot load the vector kernels.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+final class ScalarVariationKernels extends VariationKernels {
+
+
+/*============================== Kernel Methods ==============================*/
+
+
+    @Override
+    public String getName() {
+
+        return "scalar";
+    }
+
+    @Override
+    public void arithmetic(float[] x1, int offX1, float[] x2, int offX2,
+            float[] y1, int offY1, float[] y2, int offY2, float a, float b,
+            int numVars) {
+
+        for (int i = 0; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            y1[offY1 + i] = a * v1 + b * v2;
+            y2[offY2 + i] = b * v1 + a * v2;
+        }
+    }
+
+    @Override
+    public void localArithmetic(float[] x1, int offX1, float[] x2,
+            int offX2, float[] y1, int offY1, float[] y2, int offY2,
+            float[] a, int numVars) {
+
+        for (int i = 0; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            float b = 1.0f - a[i];
+            y1[offY1 + i] = a[i] * v1 + b * v2;
+            y2[offY2 + i] = b * v1 + a[i] * v2;
+        }
+    }
+
+    @Override
+    public void linear(float[] x1, int offX1, float[] x2, int offX2,
+            float[] y1, int offY1, float[] y2, int offY2, float[] y3,
+            int offY3, float l, float u, int numVars) {
+
+        for (int i = 0; i < numVars; i++) {
+            float v1 = x1[offX1 + i];
+            float v2 = x2[offX2 + i];
+            float c1 = 0.5f * v1 + 0.5f * v2;
+            float c2 = 1.5f * v1 - 0.5f * v2;
+            float c3 = - 0.5f * v1 + 1.5f * v2;
+
+            if (c2 <= l || c2 >= u) {
+                c2 = c1;
+            }
+            if (c3 <= l || c3 >= u) {
+                c3 = c1;
+            }
+
+            y1[offY1 + i] = c1;
+            y2[offY2 + i] = c2;
+            y3[offY3 + i] = c3;
+        }
+    }
+
+    @Override
+    public void uniformMutation(float[] x, int offX, float[] draws,
+            float l, float u, int numVars) {
+
+        for (int i = 0; i < numVars; i++) {
+            if (draws[i] >= 0.0f) {
+                x[offX + i] = draws[i] * (u - l) + l;
+            }
+        }
+    }
+}
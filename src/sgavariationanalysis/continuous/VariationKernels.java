@@ -0,0 +1,182 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   VariationKernels.java
+ */
+package sgavariationanalysis.continuous;
+
+/**
+ * The per-variable arithmetic of the continuous variation operators,
+ * separated from the random draws so it can be run a vector of variables
+ * at a time. Every kernel works on slices of float arrays given by an
+ * offset and a length, so it can be applied to a row of a population's
+ * genotype matrix as well as to a standalone chromosome. Any random
+ * values a kernel needs are drawn by the caller beforehand, in the same
+ * order as the operator draws them, so every kernel set produces the
+ * same children.
+ *
+ * The scalar kernels are always available. On Java 17 and later, a kernel
+ * set built on the incubating Vector API is shipped in the versioned part
+ * of the multi-release jar and is used instead when the
+ * jdk.incubator.vector module has been added to the runtime with
+ * --add-modules jdk.incubator.vector. If the class or the module cannot be
+ * loaded, the scalar kernels are used.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public abstract class VariationKernels {
+
+
+    /* The name of the class of the vector kernels, found in the versioned
+       part of the jar */
+    private static final String VECTOR_KERNELS =
+            "sgavariationanalysis.continuous.VectorVariationKernels";
+
+    /* The scalar kernels, shared by every caller */
+    private static final VariationKernels SCALAR =
+            new ScalarVariationKernels();
+
+    /* The fastest kernels available to this runtime */
+    private static final VariationKernels PREFERRED = loadPreferred();
+
+
+/*================================ Constructors ==============================*/
+
+
+    /**
+     * Kernel sets are only implemented within this package.
+     */
+    VariationKernels() {
+
+    }
+
+
+/*=============================== Static Methods =============================*/
+
+
+    /**
+     * Returns the scalar kernels, which are available on every runtime.
+     *
+     * @return the scalar kernels
+     */
+    public static VariationKernels scalar() {
+
+        return SCALAR;
+    }
+
+    /**
+     * Returns the fastest kernels available to this runtime, the vector
+     * kernels when they can be loaded and the scalar kernels otherwise.
+     *
+     * @return the preferred kernels
+     */
+    public static VariationKernels preferred() {
+
+        return PREFERRED;
+    }
+
+    /**
+     * Loads the vector kernels, falling back to the scalar kernels when
+     * the class is absent, was compiled for a newer release than the
+     * runtime, or needs a module that has not been added.
+     *
+     * @return the preferred kernels
+     */
+    private static VariationKernels loadPreferred() {
+
+        try {
+            Class<?> c = Class.forName(VECTOR_KERNELS);
+            return (VariationKernels) c.getDeclaredConstructor()
+                    .newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+
+/*============================== Kernel Methods ==============================*/
+
+
+    /**
+     * @return the name of the kernel set
+     */
+    public abstract String getName();
+
+    /**
+     * Computes the children of a whole arithmetic crossover with a single
+     * weight, y1 = a * x1 + b * x2 and y2 = b * x1 + a * x2.
+     *
+     * @param x1 the array holding the first parent
+     * @param offX1 the offset of the first parent
+     * @param x2 the array holding the second parent
+     * @param offX2 the offset of the second parent
+     * @param y1 the array to write the first child into
+     * @param offY1 the offset of the first child
+     * @param y2 the array to write the second child into
+     * @param offY2 the offset of the second child
+     * @param a the weight of the first parent in the first child
+     * @param b the weight of the second parent in the first child
+     * @param numVars the number of variables
+     */
+    public abstract void arithmetic(float[] x1, int offX1,
+            float[] x2, int offX2, float[] y1, int offY1,
+            float[] y2, int offY2, float a, float b, int numVars);
+
+    /**
+     * Computes the children of a local arithmetic crossover, where each
+     * variable has its own weight a[i] and b = 1 - a[i].
+     *
+     * @param x1 the array holding the first parent
+     * @param offX1 the offset of the first parent
+     * @param x2 the array holding the second parent
+     * @param offX2 the offset of the second parent
+     * @param y1 the array to write the first child into
+     * @param offY1 the offset of the first child
+     * @param y2 the array to write the second child into
+     * @param offY2 the offset of the second child
+     * @param a the weight of each variable, starting at index 0
+     * @param numVars the number of variables
+     */
+    public abstract void localArithmetic(float[] x1, int offX1,
+            float[] x2, int offX2, float[] y1, int offY1,
+            float[] y2, int offY2, float[] a, int numVars);
+
+    /**
+     * Computes the three candidates of a linear crossover. The second and
+     * third candidates are replaced by the first wherever they do not lie
+     * strictly between the given bounds.
+     *
+     * @param x1 the array holding the first parent
+     * @param offX1 the offset of the first parent
+     * @param x2 the array holding the second parent
+     * @param offX2 the offset of the second parent
+     * @param y1 the array to write the first candidate into
+     * @param offY1 the offset of the first candidate
+     * @param y2 the array to write the second candidate into
+     * @param offY2 the offset of the second candidate
+     * @param y3 the array to write the third candidate into
+     * @param offY3 the offset of the third candidate
+     * @param l the lower bound
+     * @param u the upper bound
+     * @param numVars the number of variables
+     */
+    public abstract void linear(float[] x1, int offX1,
+            float[] x2, int offX2, float[] y1, int offY1,
+            float[] y2, int offY2, float[] y3, int offY3,
+            float l, float u, int numVars);
+
+    /**
+     * Applies a uniform mutation, replacing each variable that has a
+     * draw of zero or more with draw * (u - l) + l. Variables with a
+     * negative draw are left unchanged.
+     *
+     * @param x the array holding the chromosome
+     * @param offX the offset of the chromosome
+     * @param draws the draw of each variable, starting at index 0
+     * @param l the lower bound
+     * @param u the upper bound
+     * @param numVars the number of variables
+     */
+    public abstract void uniformMutation(float[] x, int offX, float[] draws,
+            float l, float u, int numVars);
+}
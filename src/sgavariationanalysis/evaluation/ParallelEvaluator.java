@@ -0,0 +1,137 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ParallelEvaluator.java
+ */
+package sgavariationanalysis.evaluation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates the individuals of a generation in parallel on a fork-join
+ * pool. The range of individuals is split in halves until each piece holds
+ * no more than the grain size, and the pieces are run by the pool's
+ * workers. A range no larger than the grain size is evaluated serially on
+ * the calling thread, so small populations pay nothing for the pool.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class ParallelEvaluator {
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The pool the pieces of a range are run on */
+    private final ForkJoinPool pool;
+
+    /* The largest number of individuals evaluated as a single piece */
+    private final int grainSize;
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates an evaluator that runs on the given pool.
+     *
+     * @param pool the fork-join pool
+     * @param grainSize the largest number of individuals in a piece
+     */
+    public ParallelEvaluator(ForkJoinPool pool, int grainSize) {
+
+        if (pool == null) {
+            throw new IllegalArgumentException("ParallelEvaluator: Invalid "
+                    + "pool.");
+        }
+        if (grainSize < 1) {
+            throw new IllegalArgumentException("ParallelEvaluator: Invalid "
+                    + "grain size.");
+        }
+
+        this.pool = pool;
+        this.grainSize = grainSize;
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+    /**
+     * Runs the given task for every index from 0 to count - 1, in parallel
+     * if count is larger than the grain size. Each index is run exactly
+     * once, and the method returns once every index has been run.
+     *
+     * @param count the number of indices
+     * @param task the task to run for each index
+     */
+    public void forEach(int count, IntConsumer task) {
+
+        if (count <= grainSize) {
+            for (int i = 0; i < count; i++) {
+                task.accept(i);
+            }
+        }
+        else {
+            pool.invoke(new Piece(0, count, task));
+        }
+    }
+
+
+/*============================ Getters and Setters ===========================*/
+
+    /**
+     * @return the fork-join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the grain size
+     */
+    public int getGrainSize() {
+        return grainSize;
+    }
+
+
+/*============================== Nested Classes ==============================*/
+
+
+    /**
+     * A range of indices, split in halves until it fits the grain size.
+     */
+    private final class Piece extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /* The first index of the range */
+        private final int from;
+
+        /* The index after the last of the range */
+        private final int to;
+
+        /* The task to run for each index */
+        private final IntConsumer task;
+
+        Piece(int from, int to, IntConsumer task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= grainSize) {
+                for (int i = from; i < to; i++) {
+                    task.accept(i);
+                }
+            }
+            else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Piece(from, mid, task),
+                        new Piece(mid, to, task));
+            }
+        }
+    }
+}
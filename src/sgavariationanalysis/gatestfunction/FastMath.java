@@ -0,0 +1,156 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   FastMath.java
+ */
+package sgavariationanalysis.gatestfunction;
+
+/**
+ * Float approximations of sin, cos and exp for the fast evaluation tier
+ * of the test functions. Every step is done in float: the argument is
+ * rounded to a multiple of the period by adding and subtracting 1.5 * 2^23,
+ * reduced with a constant split into parts whose products are exact, and
+ * the reduced argument is evaluated with a single truncated Taylor series
+ * whose truncation error is below the rounding error of a float. The
+ * quadrant is applied by a multiply rather than a branch, so the code has
+ * no data dependent branches.
+ *
+ * The reductions are accurate for arguments up to about 2^15 periods, far
+ * beyond the search spaces of the test functions.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+final class FastMath {
+
+
+    /* Adding and subtracting 1.5 * 2^23 rounds a float to an integer */
+    private static final float ROUND = 12582912.0f;
+
+    private static final float INV_PI = (float) (1.0 / Math.PI);
+
+    /* pi split so that q * PI_HI and q * PI_MID are exact for small q */
+    private static final float PI_HI = 3.140625f;
+    private static final float PI_MID = 9.676516056060791e-4f;
+    private static final float PI_LO = 1.984187036896401e-9f;
+
+    private static final float LOG2_E = (float) (1.0 / Math.log(2.0));
+
+    /* ln(2) split so that k * LN2_HI is exact for |k| <= 128 */
+    private static final float LN2_HI = 0.693145751953125f;
+    private static final float LN2_LO = 1.428606765330187e-6f;
+
+    /* Taylor coefficients of sin(r) for |r| <= pi / 2 */
+    private static final float S3 = -1.0f / 6.0f;
+    private static final float S5 = 1.0f / 120.0f;
+    private static final float S7 = -1.0f / 5040.0f;
+    private static final float S9 = 1.0f / 362880.0f;
+    private static final float S11 = -1.0f / 39916800.0f;
+    private static final float S13 = 1.0f / 6227020800.0f;
+
+    /* Taylor coefficients of cos(2 * pi * f) in f for |f| <= 1 / 4 */
+    private static final float T2 = -19.739208802178716f;
+    private static final float T4 = 64.93939402266828f;
+    private static final float T6 = -85.45681720669371f;
+    private static final float T8 = 60.24464137187664f;
+    private static final float T10 = -26.426256783374388f;
+    private static final float T12 = 7.903536371318465f;
+    private static final float T14 = -1.7143907110886711f;
+
+    /* Taylor coefficients of exp(r) for |r| <= ln(2) / 2 */
+    private static final float E2 = 1.0f / 2.0f;
+    private static final float E3 = 1.0f / 6.0f;
+    private static final float E4 = 1.0f / 24.0f;
+    private static final float E5 = 1.0f / 120.0f;
+    private static final float E6 = 1.0f / 720.0f;
+    private static final float E7 = 1.0f / 5040.0f;
+
+
+    private FastMath() {
+
+    }
+
+
+/*=============================== Static Methods =============================*/
+
+
+    /**
+     * Returns an approximation of the sine of the given angle. The angle
+     * is reduced by the nearest multiple q of pi, and
+     * sin(a) = (-1)^q * sin(a - q * pi).
+     *
+     * @param a the angle in radians
+     * @return the sine of a
+     */
+    static float sin(float a) {
+
+        float q = (a * INV_PI + ROUND) - ROUND;
+        float r = ((a - q * PI_HI) - q * PI_MID) - q * PI_LO;
+        float r2 = r * r;
+        float p = r + r * r2 * (S3 + r2 * (S5 + r2 * (S7 + r2 * (S9 +
+                r2 * (S11 + r2 * S13)))));
+
+        return p * parity(q);
+    }
+
+    /**
+     * Returns an approximation of cos(2 * pi * t). The angle is reduced as
+     * a number of turns, which is exact in float, so the result stays
+     * accurate where forming 2 * pi * t in float would not. With q the
+     * nearest multiple of a half turn, cos(2 * pi * t) =
+     * (-1)^q * cos(2 * pi * (t - q / 2)).
+     *
+     * @param t the angle in turns
+     * @return the cosine of 2 * pi * t
+     */
+    static float cosTurns(float t) {
+
+        float q = (2.0f * t + ROUND) - ROUND;
+        float f = t - 0.5f * q;
+        float f2 = f * f;
+        float p = 1.0f + f2 * (T2 + f2 * (T4 + f2 * (T6 + f2 * (T8 +
+                f2 * (T10 + f2 * (T12 + f2 * T14))))));
+
+        return p * parity(q);
+    }
+
+    /**
+     * Returns an approximation of e raised to the given power. Arguments
+     * whose result is below the smallest normal float return zero.
+     *
+     * @param x the exponent
+     * @return e to the power x
+     */
+    static float exp(float x) {
+
+        float k = (x * LOG2_E + ROUND) - ROUND;
+        if (k < -126.0f) {
+            return 0.0f;
+        }
+        if (k > 127.0f) {
+            return Float.POSITIVE_INFINITY;
+        }
+
+        float r = (x - k * LN2_HI) - k * LN2_LO;
+        float p = 1.0f + r * (1.0f + r * (E2 + r * (E3 + r * (E4 +
+                r * (E5 + r * (E6 + r * E7))))));
+
+        return p * Float.intBitsToFloat(((int) k + 127) << 23);
+    }
+
+
+/*============================== Private Methods =============================*/
+
+
+    /**
+     * Returns (-1)^q for an integral q, computed without a branch from
+     * q - 2 * round(q / 2), which is 0 for even q and +1 or -1 for odd q.
+     *
+     * @param q the integral value
+     * @return 1 if q is even and -1 if it is odd
+     */
+    private static float parity(float q) {
+
+        float half = (0.5f * q + ROUND) - ROUND;
+
+        return 1.0f - 2.0f * Math.abs(q - 2.0f * half);
+    }
+}
@@ -16,6 +16,10 @@ import java.util.ArrayList;
  * 
  * Dimensions: 1
  * 
+ * The function can be evaluated exactly, through Math.sin in double 
+ * precision, or in an opt-in fast tier that uses a float approximation of
+ * sin and differs from the exact tier by at most {@link #FAST_MAX_ERROR}.
+ * 
  * @author Brett Crawford <brett.crawford@temple.edu>
  */
 public class Function1 implements GATestFunction {
@@ -36,6 +40,31 @@ public class Function1 implements GATestFunction {
                 for -1 < x < 2
     */
     
+    /**
+     * The maximum absolute difference between the fast and exact tiers 
+     * over -1 < x < 2.
+     */
+    public static final float FAST_MAX_ERROR = 1.0e-6f;
+    
+    /* A flag for evaluating with the fast tier */
+    private final boolean isFast;
+    
+    /**
+     * Creates the function with exact evaluation.
+     */
+    public Function1() {
+        this(false);
+    }
+    
+    /**
+     * Creates the function with either exact or fast evaluation.
+     * 
+     * @param isFast a flag for evaluating with the fast tier
+     */
+    public Function1(boolean isFast) {
+        this.isFast = isFast;
+    }
+    
     /**
      * Returns true if the function is a maximum problem, and false if 
      * the function is a minimum problem.
@@ -96,9 +125,115 @@ public class Function1 implements GATestFunction {
     @Override
     public float calculateFitness(ArrayList<Float> reals) {
         
-        float real = reals.get(0);
+        return calculateFitness(reals.get(0));
+    }
+    
+    /**
+     * Calculates and returns the fitness value for the individual whose 
+     * real value is stored in the given array at offset.
+     * 
+     * @param reals the array holding the real value
+     * @param offset the index of the real value
+     * @param numVars the number of real values, always 1
+     * @return the fitness value
+     */
+    @Override
+    public float calculateFitness(float[] reals, int offset, int numVars) {
+        return calculateFitness(reals[offset]);
+    }
+    
+    /**
+     * Calculates the fitness values of a batch of individuals. With a 
+     * single variable the matrix holds one real value per individual.
+     * 
+     * @param reals the matrix of real values, one individual per row
+     * @param count the number of individuals to evaluate
+     * @param fitness the array to store the fitness values in
+     */
+    @Override
+    public void calculateFitnessBatch(float[] reals, int count, 
+            float[] fitness) {
+        
+        for (int r = 0; r < count; r++) {
+            fitness[r] = calculateFitness(reals[r]);
+        }
+    }
+    
+    /**
+     * Calculates the fitness value of a single real value.
+     * 
+     * @param real the real value
+     * @return the fitness value
+     */
+    private float calculateFitness(float real) {
         
-        return real * (float) Math.sin(10.0f * (float) Math.PI * real) + 2.0f;
+        float angle = 10.0f * (float) Math.PI * real;
+        float sin = isFast ? FastMath.sin(angle) : (float) Math.sin(angle);
+        
+        return real * sin + 2.0f;
+    }
+    
+    /**
+     * @return true if the function is evaluated with the fast tier
+     */
+    public boolean isFast() {
+        return isFast;
+    }
+    
+    /**
+     * Returns the maximum absolute error of the fitness values, 
+     * {@link #FAST_MAX_ERROR} for the fast tier and 0 otherwise.
+     * 
+     * @return the maximum absolute error of the fitness values
+     */
+    @Override
+    public float getMaxAbsError() {
+        return isFast ? FAST_MAX_ERROR : 0.0f;
+    }
+    
+    /**
+     * Returns the number of separable per-variable terms of the function.
+     * 
+     * @return the number of terms
+     */
+    @Override
+    public int getNumTerms() {
+        return 1;
+    }
+    
+    /**
+     * Returns the value of a per-variable term for a single variable. With a
+     * single variable the only term is the fitness itself.
+     * 
+     * @param t the index of the term
+     * @param real the value of the variable
+     * @return the value of the term
+     */
+    @Override
+    public float term(int t, float real) {
+        return calculateFitness(real);
+    }
+    
+    /**
+     * Combines the per-variable term sums into the fitness value.
+     * 
+     * @param sums the sum of each term over the variables
+     * @param numVars the number of variables
+     * @return the fitness value
+     */
+    @Override
+    public float combine(float[] sums, int numVars) {
+        return sums[0];
+    }
+    
+    /**
+     * Returns true, as the function holds no mutable state.
+     * 
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
     }
     
     /**
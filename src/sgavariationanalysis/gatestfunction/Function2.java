@@ -101,12 +101,61 @@ public class Function2 implements GATestFunction {
         float res = 0.0f;
         
         for (float real : reals) {
-            res += (float) Math.pow(real, 2);
+            res += real * real;
         }
         
         return res;
     }
     
+    /**
+     * Calculates and returns the fitness value for the individual whose 
+     * real values are stored in the given array, starting at offset.
+     * 
+     * @param reals the array holding the real values
+     * @param offset the index of the first real value
+     * @param numVars the number of real values
+     * @return the fitness value
+     */
+    @Override
+    public float calculateFitness(float[] reals, int offset, int numVars) {
+        
+        float res = 0.0f;
+        
+        for (int i = offset; i < offset + numVars; i++) {
+            res += reals[i] * reals[i];
+        }
+        
+        return res;
+    }
+    
+    /**
+     * Calculates the fitness values of a batch of individuals.
+     * 
+     * @param reals the matrix of real values, one individual per row
+     * @param count the number of individuals to evaluate
+     * @param fitness the array to store the fitness values in
+     */
+    @Override
+    public void calculateFitnessBatch(float[] reals, int count, 
+            float[] fitness) {
+        
+        int numVars = getNumVars();
+        
+        for (int r = 0, off = 0; r < count; r++, off += numVars) {
+            fitness[r] = calculateFitness(reals, off, numVars);
+        }
+    }
+    
+    /**
+     * Returns true, as the function holds no mutable state.
+     * 
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
     /**
      * Calculate the fitness transferral value for the given fitness value.
      * For use in minimum problems. The fitness transferral value is equal
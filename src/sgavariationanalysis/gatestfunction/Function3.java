@@ -18,6 +18,11 @@ import java.util.ArrayList;
  * 
  * Dimensions: 2
  * 
+ * The function can be evaluated exactly, through Math.exp and Math.cos in
+ * double precision, or in an opt-in fast tier that uses float 
+ * approximations of exp and cos and differs from the exact tier by at most
+ * {@link #FAST_MAX_ERROR}.
+ * 
  * @author Brett Crawford <brett.crawford@temple.edu>
  */
 public class Function3 implements GATestFunction {
@@ -38,6 +43,31 @@ public class Function3 implements GATestFunction {
                 for -20 < x < 30
     */
     
+    /**
+     * The maximum absolute difference between the fast and exact tiers 
+     * over -20 < x < 30.
+     */
+    public static final float FAST_MAX_ERROR = 1.0e-5f;
+    
+    /* A flag for evaluating with the fast tier */
+    private final boolean isFast;
+    
+    /**
+     * Creates the function with exact evaluation.
+     */
+    public Function3() {
+        this(false);
+    }
+    
+    /**
+     * Creates the function with either exact or fast evaluation.
+     * 
+     * @param isFast a flag for evaluating with the fast tier
+     */
+    public Function3(boolean isFast) {
+        this.isFast = isFast;
+    }
+    
     /**
      * Returns true if the function is a maximum problem, and false if 
      * the function is a minimum problem.
@@ -98,9 +128,17 @@ public class Function3 implements GATestFunction {
     @Override
     public float calculateFitness(ArrayList<Float> reals) {
         
+        if (isFast) {
+            float[] values = new float[reals.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = reals.get(i);
+            }
+            return calculateFitness(values, 0, values.length);
+        }
+        
         float firstSum = 0.0f;
         for (float real : reals) {
-            firstSum += (float) Math.pow(real, 2);
+            firstSum += real * real;
         }
         
         float firstTerm = -20.0f * (float) Math.exp(
@@ -117,7 +155,153 @@ public class Function3 implements GATestFunction {
         
         return firstTerm - secondTerm + 20.f + (float) Math.E;
     }
+    
+    /**
+     * Calculates and returns the fitness value for the individual whose 
+     * real values are stored in the given array, starting at offset. Both
+     * sums are accumulated in a single pass over the values.
+     * 
+     * @param reals the array holding the real values
+     * @param offset the index of the first real value
+     * @param numVars the number of real values
+     * @return the fitness value
+     */
+    @Override
+    public float calculateFitness(float[] reals, int offset, int numVars) {
+        
+        if (isFast) {
+            return calculateFastFitness(reals, offset, numVars);
+        }
+        
+        float firstSum = 0.0f;
+        float secondSum = 0.0f;
+        for (int i = offset; i < offset + numVars; i++) {
+            firstSum += reals[i] * reals[i];
+            secondSum += (float) Math.cos(2 * Math.PI * reals[i]);
+        }
+        
+        return combine(firstSum, secondSum, numVars);
+    }
+    
+    /**
+     * Calculates the fitness value with the fast tier. The cosine is 
+     * reduced in turns rather than radians and the square root is left to
+     * Math.sqrt, which is already a single instruction.
+     * 
+     * @param reals the array holding the real values
+     * @param offset the index of the first real value
+     * @param numVars the number of real values
+     * @return the fitness value
+     */
+    private float calculateFastFitness(float[] reals, int offset, 
+            int numVars) {
+        
+        float firstSum = 0.0f;
+        float secondSum = 0.0f;
+        for (int i = offset; i < offset + numVars; i++) {
+            firstSum += reals[i] * reals[i];
+            secondSum += FastMath.cosTurns(reals[i]);
+        }
+        
+        return combine(firstSum, secondSum, numVars);
+    }
+    
+    /**
+     * Combines the sum of squares and the sum of cosines into the fitness
+     * value, with the exponentials of the current tier.
+     * 
+     * @param firstSum the sum of the squares of the variables
+     * @param secondSum the sum of cos(2 * pi * x) over the variables
+     * @param numVars the number of variables
+     * @return the fitness value
+     */
+    private float combine(float firstSum, float secondSum, int numVars) {
+        
+        if (isFast) {
+            float firstTerm = -20.0f * FastMath.exp(
+                    -0.2f * (float) Math.sqrt(firstSum / (float) numVars));
+            float secondTerm = FastMath.exp(secondSum / (float) numVars);
+            
+            return firstTerm - secondTerm + 20.f + (float) Math.E;
+        }
+        
+        float firstTerm = -20.0f * (float) Math.exp(
+                -0.2f * (float) Math.sqrt(firstSum / (float) numVars));
+        float secondTerm = (float) Math.exp(secondSum / (float) numVars);
+        
+        return firstTerm - secondTerm + 20.f + (float) Math.E;
+    }
+    
+    /**
+     * Calculates the fitness values of a batch of individuals.
+     * 
+     * @param reals the matrix of real values, one individual per row
+     * @param count the number of individuals to evaluate
+     * @param fitness the array to store the fitness values in
+     */
+    @Override
+    public void calculateFitnessBatch(float[] reals, int count, 
+            float[] fitness) {
+        
+        int numVars = getNumVars();
+        
+        for (int r = 0, off = 0; r < count; r++, off += numVars) {
+            fitness[r] = calculateFitness(reals, off, numVars);
+        }
+    }
 
+    /**
+     * Returns the number of separable per-variable terms of the function.
+     * 
+     * @return the number of terms
+     */
+    @Override
+    public int getNumTerms() {
+        return 2;
+    }
+    
+    /**
+     * Returns the value of a per-variable term for a single variable. Term
+     * 0 is the square of the variable and term 1 is cos(2 * pi * x).
+     * 
+     * @param t the index of the term
+     * @param real the value of the variable
+     * @return the value of the term
+     */
+    @Override
+    public float term(int t, float real) {
+        
+        if (t == 0) {
+            return real * real;
+        }
+        
+        return isFast ? FastMath.cosTurns(real) : 
+                (float) Math.cos(2 * Math.PI * real);
+    }
+    
+    /**
+     * Combines the per-variable term sums into the fitness value.
+     * 
+     * @param sums the sum of each term over the variables
+     * @param numVars the number of variables
+     * @return the fitness value
+     */
+    @Override
+    public float combine(float[] sums, int numVars) {
+        
+        return combine(sums[0], sums[1], numVars);
+    }
+    
+    /**
+     * Returns true, as the function holds no mutable state.
+     * 
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+    
     /**
      * Calculate the fitness transferral value for the given fitness value.
      * For use in minimum problems. The fitness transferral value is equal
@@ -139,6 +323,24 @@ public class Function3 implements GATestFunction {
         return c - fitness;
     }
 
+    /**
+     * @return true if the function is evaluated with the fast tier
+     */
+    public boolean isFast() {
+        return isFast;
+    }
+    
+    /**
+     * Returns the maximum absolute error of the fitness values, 
+     * {@link #FAST_MAX_ERROR} for the fast tier and 0 otherwise.
+     * 
+     * @return the maximum absolute error of the fitness values
+     */
+    @Override
+    public float getMaxAbsError() {
+        return isFast ? FAST_MAX_ERROR : 0.0f;
+    }
+    
     /**
      * Returns the optimal solutions for the problem.
      * 
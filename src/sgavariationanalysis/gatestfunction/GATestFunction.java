@@ -57,6 +57,57 @@ public interface GATestFunction {
      */
     public float calculateFitness(ArrayList<Float> reals);
     
+    /**
+     * Calculates and returns the fitness value for the individual whose 
+     * real values are stored in the given array, starting at offset, 
+     * without boxing them.
+     * 
+     * The default implementation copies the values into a list for 
+     * {@link #calculateFitness(ArrayList)}, so existing functions keep 
+     * working. Functions should override it with a primitive loop.
+     * 
+     * @param reals the array holding the real values
+     * @param offset the index of the first real value
+     * @param numVars the number of real values
+     * @return the fitness value
+     */
+    public default float calculateFitness(float[] reals, int offset, 
+            int numVars) {
+        
+        ArrayList<Float> list = new ArrayList<>(numVars);
+        
+        for (int i = 0; i < numVars; i++) {
+            list.add(reals[offset + i]);
+        }
+        
+        return calculateFitness(list);
+    }
+    
+    /**
+     * Calculates the fitness values of a batch of individuals. The real 
+     * values of the individuals are the rows of a flat matrix, getNumVars()
+     * values per row with row i starting at index i * getNumVars(), and the
+     * fitness value of row i is stored in fitness[i]. 
+     * 
+     * The default implementation evaluates each row through 
+     * {@link #calculateFitness(float[], int, int)}, so existing functions 
+     * support batches without change. Functions should override it with a 
+     * primitive loop over the matrix.
+     * 
+     * @param reals the matrix of real values, one individual per row
+     * @param count the number of individuals to evaluate
+     * @param fitness the array to store the fitness values in
+     */
+    public default void calculateFitnessBatch(float[] reals, int count, 
+            float[] fitness) {
+        
+        int numVars = getNumVars();
+        
+        for (int r = 0; r < count; r++) {
+            fitness[r] = calculateFitness(reals, r * numVars, numVars);
+        }
+    }
+    
     /**
      * Calculate the fitness transferral value for the given fitness value.
      * For use in minimum problems. The fitness transferral value is equal
@@ -68,6 +119,70 @@ public interface GATestFunction {
      */
     public float getFitnessTransferral(float fitness);
     
+    /**
+     * Returns the number of separable per-variable terms of the function,
+     * or 0 if the function is not separable. A separable function can be
+     * evaluated by summing each term over the variables and combining the
+     * sums, which lets a caller whose variables take few distinct values
+     * tabulate the terms once instead of evaluating them each time.
+     * 
+     * @return the number of terms, or 0 if the function is not separable
+     */
+    public default int getNumTerms() {
+        return 0;
+    }
+    
+    /**
+     * Returns the value of a per-variable term for a single variable. The
+     * function's fitness is combine(sums), where sums[t] is term(t, x) 
+     * summed over the variables in order starting from 0.
+     * 
+     * @param t the index of the term, less than getNumTerms()
+     * @param real the value of the variable
+     * @return the value of the term
+     */
+    public default float term(int t, float real) {
+        throw new UnsupportedOperationException("GATestFunction: not "
+                + "separable.");
+    }
+    
+    /**
+     * Combines the per-variable term sums into the fitness value. The 
+     * result must equal calculateFitness for the same variables.
+     * 
+     * @param sums the sum of each term over the variables
+     * @param numVars the number of variables
+     * @return the fitness value
+     */
+    public default float combine(float[] sums, int numVars) {
+        throw new UnsupportedOperationException("GATestFunction: not "
+                + "separable.");
+    }
+    
+    /**
+     * Returns the maximum absolute difference between the fitness values
+     * calculated by this function and those of its exact evaluation tier,
+     * over the whole search space. Functions evaluated exactly return 0.
+     * 
+     * @return the maximum absolute error of the fitness values
+     */
+    public default float getMaxAbsError() {
+        return 0.0f;
+    }
+    
+    /**
+     * Returns true if the function may be evaluated by several threads at
+     * once. A function declaring itself thread-safe must not modify any
+     * shared state in its fitness and term methods, and the individuals of
+     * a population are then evaluated in parallel. The default is false, 
+     * which keeps evaluation on the population's own thread.
+     * 
+     * @return true if the function is thread-safe
+     */
+    public default boolean isThreadSafe() {
+        return false;
+    }
+    
     /**
      * Returns the optimal solutions for the problem.
      * 
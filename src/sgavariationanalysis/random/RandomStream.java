@@ -0,0 +1,135 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   RandomStream.java
+ */
+package sgavariationanalysis.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * A stream of pseudo-random numbers that can be split into independent
+ * streams. A run of the GA has a single root stream created from a seed,
+ * each trial is given a stream split from the root in trial order, and
+ * every population, individual and variation operator of the trial draws
+ * from that stream. A run is therefore reproduced exactly by its seed,
+ * however many threads run its trials.
+ *
+ * A stream is not thread-safe and is meant to be used by one thread at a
+ * time, which also means no thread ever waits on another for a number,
+ * unlike with a shared java.util.Random.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public final class RandomStream {
+
+
+    /* The spacing of the floats returned by nextFloat, 2^-24 */
+    private static final float FLOAT_UNIT = 1.0f / (1 << 24);
+
+
+/*============================== Member Variables ============================*/
+
+
+    /* The generator the numbers are drawn from */
+    private final SplittableRandom generator;
+
+
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates a stream from the given seed. Streams created from the same
+     * seed produce the same numbers.
+     *
+     * @param seed the seed
+     */
+    public RandomStream(long seed) {
+
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates a stream around the given generator.
+     *
+     * @param generator the generator
+     */
+    private RandomStream(SplittableRandom generator) {
+
+        this.generator = generator;
+    }
+
+
+/*=============================== Public Methods =============================*/
+
+    /**
+     * Splits off a new stream that is independent of this one. Both this
+     * stream and the new one advance, so successive splits differ.
+     *
+     * @return the new stream
+     */
+    public RandomStream split() {
+
+        return new RandomStream(generator.split());
+    }
+
+    /**
+     * Returns a float uniformly distributed in [0, 1), with the same
+     * 24-bit resolution as java.util.Random's nextFloat.
+     *
+     * @return the next float
+     */
+    public float nextFloat() {
+
+        return (generator.nextInt() >>> 8) * FLOAT_UNIT;
+    }
+
+    /**
+     * Returns a double uniformly distributed in [0, 1).
+     *
+     * @return the next double
+     */
+    public double nextDouble() {
+
+        return generator.nextDouble();
+    }
+
+    /**
+     * Returns a long with every bit independently random.
+     *
+     * @return the next long
+     */
+    public long nextLong() {
+
+        return generator.nextLong();
+    }
+
+    /**
+     * Returns an int uniformly distributed over every int value.
+     *
+     * @return the next int
+     */
+    public int nextInt() {
+
+        return generator.nextInt();
+    }
+
+    /**
+     * Returns an int uniformly distributed in [0, bound).
+     *
+     * @param bound the exclusive upper bound, which must be positive
+     * @return the next int
+     */
+    public int nextInt(int bound) {
+
+        return generator.nextInt(bound);
+    }
+
+    /**
+     * Returns a random boolean.
+     *
+     * @return the next boolean
+     */
+    public boolean nextBoolean() {
+
+        return generator.nextBoolean();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   AliasRouletteWheel.java
+ */
+package sgavariationanalysis.selection;
+
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * A roulette wheel using Walker's alias method as constructed by Vose. 
+ * The wheel is split into n columns of equal width, each holding at most 
+ * two individuals, so it takes O(n) to build and O(1) per selection.
+ * 
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class AliasRouletteWheel implements RouletteWheel {
+    
+    
+/*============================== Member Variables ============================*/
+
+    
+    /* The share of each column belonging to the column's own individual */
+    private double[] prob;
+    
+    /* The individual owning the remainder of each column */
+    private int[] alias;
+    
+    /* Work lists of the columns below and above the average weight */
+    private int[] small;
+    private int[] large;
+    
+    /* The weights scaled so that their average is one */
+    private double[] scaled;
+    
+    /* The number of individuals on the wheel */
+    private int size;
+    
+    
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates an empty wheel. The wheel must be built before selecting.
+     */
+    public AliasRouletteWheel() {
+        allocate(0);
+    }
+    
+    
+/*=============================== Public Methods =============================*/
+    
+    
+    @Override
+    public void build(float[] weights, int size) {
+        
+        if (prob.length < size) {
+            allocate(size);
+        }
+        this.size = size;
+        
+        double total = 0.0;
+        for (int i = 0; i < size; i++) {
+            total += weights[i];
+        }
+        
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            alias[i] = i;
+            if (scaled[i] < 1.0) {
+                small[numSmall++] = i;
+            }
+            else {
+                large[numLarge++] = i;
+            }
+        }
+        
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[numSmall++] = l;
+            }
+            else {
+                large[numLarge++] = l;
+            }
+        }
+        
+        // Whatever remains is within round-off of a full column
+        while (numLarge > 0) {
+            prob[large[--numLarge]] = 1.0;
+        }
+        while (numSmall > 0) {
+            prob[small[--numSmall]] = 1.0;
+        }
+    }
+    
+    @Override
+    public int select(RandomStream rand) {
+        
+        return selectAt(rand.nextDouble());
+    }
+    
+    /**
+     * Returns the index of the individual owning the given point of the 
+     * wheel, whose column is picked by the point's integer part once 
+     * scaled by the size and whose share of the column by its remainder.
+     * 
+     * @param point the point of the wheel, in [0, 1)
+     * @return the index of the selected individual
+     */
+    int selectAt(double point) {
+        
+        double spin = point * size;
+        int column = (int) spin;
+        if (column >= size) {
+            column = size - 1;
+        }
+        
+        return spin - column < prob[column] ? column : alias[column];
+    }
+    
+    
+/*============================== Private Methods =============================*/
+    
+    
+    /**
+     * Allocates the tables for the given number of individuals.
+     * 
+     * @param capacity the number of individuals
+     */
+    private void allocate(int capacity) {
+        prob = new double[capacity];
+        alias = new int[capacity];
+        small = new int[capacity];
+        large = new int[capacity];
+        scaled = new double[capacity];
+    }
+}
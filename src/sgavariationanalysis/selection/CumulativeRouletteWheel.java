@@ -0,0 +1,105 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   CumulativeRouletteWheel.java
+ */
+package sgavariationanalysis.selection;
+
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * A roulette wheel that stores the cumulative distribution of the weights
+ * and selects by binary search, taking O(n) to build and O(log n) per 
+ * selection.
+ * 
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class CumulativeRouletteWheel implements RouletteWheel {
+    
+    
+/*============================== Member Variables ============================*/
+
+    
+    /* The upper edge of each individual's slice of the wheel */
+    private double[] cumulative;
+    
+    /* The number of individuals on the wheel */
+    private int size;
+    
+    /* The index of the last individual with a slice of non-zero width */
+    private int lastSlice;
+    
+    
+/*================================ Constructors ==============================*/
+
+    /**
+     * Creates an empty wheel. The wheel must be built before selecting.
+     */
+    public CumulativeRouletteWheel() {
+        cumulative = new double[0];
+    }
+    
+    
+/*=============================== Public Methods =============================*/
+    
+    
+    @Override
+    public void build(float[] weights, int size) {
+        
+        if (cumulative.length < size) {
+            cumulative = new double[size];
+        }
+        this.size = size;
+        lastSlice = 0;
+        
+        double total = 0.0;
+        for (int i = 0; i < size; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+            if (weights[i] > 0.0f) {
+                lastSlice = i;
+            }
+        }
+    }
+    
+    /**
+     * Spins the wheel and returns the index of the selected individual.
+     * The spin is scaled by the total weight, so a spin can not fall past 
+     * the last slice when the relative fitness values do not quite sum to 
+     * one. Individuals with a slice of zero width are never selected.
+     * 
+     * @param rand the pseudo-random number stream
+     * @return the index of the selected individual
+     */
+    @Override
+    public int select(RandomStream rand) {
+        
+        return selectAt(rand.nextFloat());
+    }
+    
+    /**
+     * Returns the index of the individual whose slice holds the given 
+     * point of the wheel.
+     * 
+     * @param spin the point of the wheel, in [0, 1)
+     * @return the index of the selected individual
+     */
+    int selectAt(float spin) {
+        
+        double target = spin * cumulative[size - 1];
+        
+        // Find the first slice whose upper edge lies above the target
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] > target) {
+                high = mid;
+            }
+            else {
+                low = mid + 1;
+            }
+        }
+        
+        return low < lastSlice ? low : lastSlice;
+    }
+}
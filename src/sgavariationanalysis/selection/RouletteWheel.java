@@ -0,0 +1,37 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   RouletteWheel.java
+ */
+package sgavariationanalysis.selection;
+
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * An interface for a roulette wheel used for fitness proportionate 
+ * selection. The wheel is built once per generation from the relative 
+ * fitness values of the population, after which any number of 
+ * individuals can be selected from it with replacement.
+ * 
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public interface RouletteWheel {
+    
+    /**
+     * Builds the wheel from the first size values of the given weights. 
+     * Each individual's slice of the wheel is proportional to its weight.
+     * The weights need not sum to exactly one.
+     * 
+     * @param weights the relative fitness values of the population
+     * @param size the number of individuals in the population
+     */
+    public void build(float[] weights, int size);
+    
+    /**
+     * Spins the wheel and returns the index of the selected individual.
+     * 
+     * @param rand the pseudo-random number stream
+     * @return the index of the selected individual
+     */
+    public int select(RandomStream rand);
+    
+}
@@ -0,0 +1,107 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   AllocationTest.java
+ */
+package sgavariationanalysis;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import sgavariationanalysis.binary.BinaryPopulation;
+import sgavariationanalysis.continuous.ContinuousPopulation;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * Checks that a generation of selection, reproduction and evaluation
+ * allocates next to nothing once the populations have warmed up, for
+ * every crossover operator. The bound leaves room for the odd one-off
+ * allocation of the JVM, but not for even one small array per generation.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class AllocationTest {
+
+    /* The generations run before measuring, so the JIT has compiled */
+    private static final int WARMUP_GENERATIONS = 2000;
+
+    /* The generations measured */
+    private static final int GENERATIONS = 1000;
+
+    /* The largest mean number of bytes allowed per generation */
+    private static final double MAX_BYTES_PER_GENERATION = 16.0;
+
+    /* The number of binary and continuous crossover operators */
+    private static final int NUM_BINARY_CROSSOVERS = 9;
+    private static final int NUM_CONTINUOUS_CROSSOVERS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void testBinaryGenerationsDoNotAllocate() {
+
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        GATestFunction func2 = new Function2();
+        for (int id = 1; id <= NUM_BINARY_CROSSOVERS; id++) {
+            BinaryPopulation pop = new BinaryPopulation(func2,
+                    new RandomStream(id), false, id, null);
+
+            for (int gen = 0; gen < WARMUP_GENERATIONS; gen++) {
+                pop.rwSelect();
+                pop.reproduce();
+            }
+
+            long start = allocatedBytes();
+            for (int gen = 0; gen < GENERATIONS; gen++) {
+                pop.rwSelect();
+                pop.reproduce();
+            }
+            double perGen = (double) (allocatedBytes() - start) / GENERATIONS;
+
+            assertTrue("Binary crossover " + id + " allocated " + perGen
+                    + " bytes per generation",
+                    perGen <= MAX_BYTES_PER_GENERATION);
+        }
+    }
+
+    @Test
+    public void testContinuousGenerationsDoNotAllocate() {
+
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        GATestFunction func3 = new Function3();
+        for (int id = 1; id <= NUM_CONTINUOUS_CROSSOVERS; id++) {
+            ContinuousPopulation pop = new ContinuousPopulation(func3,
+                    new RandomStream(id), id, null);
+
+            for (int gen = 0; gen < WARMUP_GENERATIONS; gen++) {
+                pop.rwSelect();
+                pop.reproduce();
+            }
+
+            long start = allocatedBytes();
+            for (int gen = 0; gen < GENERATIONS; gen++) {
+                pop.rwSelect();
+                pop.reproduce();
+            }
+            double perGen = (double) (allocatedBytes() - start) / GENERATIONS;
+
+            assertTrue("Continuous crossover " + id + " allocated " + perGen
+                    + " bytes per generation",
+                    perGen <= MAX_BYTES_PER_GENERATION);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+}
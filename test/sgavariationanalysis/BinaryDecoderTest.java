@@ -0,0 +1,84 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   BinaryDecoderTest.java
+ */
+package sgavariationanalysis;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.binary.BinaryDecoder;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class BinaryDecoderTest {
+    
+    @Test
+    public void testGrayToBinary() {
+        
+        // The 4 bit reflected gray code sequence
+        long[] gray = new long[] { 0, 1, 3, 2, 6, 7, 5, 4, 
+                                   12, 13, 15, 14, 10, 11, 9, 8 };
+        
+        for (int i = 0; i < gray.length; i++) {
+            assertEquals(i, BinaryDecoder.grayToBinary(gray[i]));
+        }
+        
+        Random rand = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            long binary = rand.nextLong();
+            assertEquals(binary, 
+                    BinaryDecoder.grayToBinary((binary >>> 1) ^ binary));
+        }
+    }
+    
+    @Test
+    public void testExtractAcrossWords() {
+        
+        // Function2 has 5 variables of 14 genes, so variable 4 occupies
+        // loci 56 to 69 and straddles the first and second words.
+        GATestFunction func2 = new Function2();
+        BinaryDecoder decoder = new BinaryDecoder(func2, false);
+        long[] words = new long[] { 0xAB00000000000000L, 0x2AL };
+        
+        assertEquals(0x2AABL, decoder.extract(words, 4));
+        assertEquals(0L, decoder.extract(words, 0));
+    }
+    
+    @Test
+    public void testDecodeBounds() {
+        
+        GATestFunction func3 = new Function3();
+        BinaryDecoder decoder = new BinaryDecoder(func3, true);
+        
+        assertEquals(func3.getXLowerBound(), decoder.toReal(0), 0.0f);
+        assertTrue(decoder.toReal(0xFFFFL) < func3.getXUpperBound());
+        assertEquals(func3.getXUpperBound(), decoder.toReal(0xFFFFL), 0.001f);
+    }
+    
+    @Test
+    public void testTermTablesMatchExactFitness() {
+        
+        GATestFunction func3 = new Function3();
+        BinaryDecoder decoder = new BinaryDecoder(func3, true);
+        Random rand = new Random(13);
+        long[] words = new long[1];
+        float[] reals = new float[2];
+        float[] tableReals = new float[2];
+        
+        assertTrue(decoder.hasTermTables());
+        for (int i = 0; i < 10000; i++) {
+            words[0] = rand.nextLong() & 0xFFFFFFFFL;
+            decoder.decode(words, 0, reals);
+            float exact = func3.calculateFitness(reals, 0, 2);
+            
+            assertEquals(exact, decoder.evaluate(words, 0, tableReals), 0.0f);
+            assertArrayEquals(reals, tableReals, 0.0f);
+        }
+    }
+}
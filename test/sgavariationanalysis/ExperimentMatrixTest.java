@@ -0,0 +1,79 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ExperimentMatrixTest.java
+ */
+package sgavariationanalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class ExperimentMatrixTest {
+
+    @Test
+    public void testDefaultMatrixHasEveryCell() {
+
+        // 9 binary and 9 gray crossovers and 5 continuous, for 3 functions
+        ExperimentMatrix matrix = new ExperimentMatrix(Arrays.asList());
+
+        assertEquals(3 * (9 + 9 + 5), matrix.getNumCells());
+    }
+
+    @Test
+    public void testCrossoverNamesAndIds() throws IOException {
+
+        // Id 2 applies to every representation, so it selects DPC for
+        // binary and LAC for continuous, while SPC and WAC exist for one
+        // representation each.
+        File out = File.createTempFile("matrix", ".tsv");
+        out.deleteOnExit();
+        ExperimentMatrix matrix = new ExperimentMatrix(Arrays.asList(
+                "representation=binary,continuous", "function=1",
+                "crossover=SPC, 2 ,wac", "popSize=4", "maxGen=2",
+                "trials=3", "alias=true", "threads=2",
+                "out=" + out.getPath()));
+
+        assertEquals(4, matrix.getNumCells());
+
+        matrix.run();
+        List<String> lines = Files.readAllLines(out.toPath(),
+                StandardCharsets.UTF_8);
+
+        assertEquals(6, lines.size());
+        assertTrue(lines.get(0).startsWith("# seed="));
+        assertTrue(lines.get(0).contains(" popSize=4 maxGen=2 "));
+        assertTrue(lines.get(0).endsWith(" trials=3 alias=true"));
+        assertTrue(lines.get(1).startsWith("representation\tfunction\t"));
+        assertTrue(lines.get(2).startsWith("binary\tFunction1\tSPC\t"));
+        assertTrue(lines.get(3).startsWith("binary\tFunction1\tDPC\t"));
+        assertTrue(lines.get(4).startsWith("continuous\tFunction1\tWAC\t"));
+        assertTrue(lines.get(5).startsWith("continuous\tFunction1\tLAC\t"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownKey() {
+
+        new ExperimentMatrix(Arrays.asList("popsize=20"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRepresentation() {
+
+        new ExperimentMatrix(Arrays.asList("representation=binary,octal"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddPopulationSize() {
+
+        new ExperimentMatrix(Arrays.asList("popSize=21"));
+    }
+}
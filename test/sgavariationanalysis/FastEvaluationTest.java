@@ -0,0 +1,101 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   FastEvaluationTest.java
+ */
+package sgavariationanalysis;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * Verifies the fast evaluation tier of the test functions against the
+ * exact tier on a dense grid over the whole search space.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class FastEvaluationTest {
+
+    /* The number of grid intervals along each variable */
+    private static final int STEPS_1D = 1000000;
+    private static final int STEPS_2D = 1000;
+
+    @Test
+    public void testFunction1WithinMaxError() {
+
+        GATestFunction exact = new Function1();
+        GATestFunction fast = new Function1(true);
+        float[] reals = new float[1];
+
+        assertEquals(0.0f, exact.getMaxAbsError(), 0.0f);
+        assertEquals(Function1.FAST_MAX_ERROR, fast.getMaxAbsError(), 0.0f);
+
+        for (int i = 0; i <= STEPS_1D; i++) {
+            reals[0] = gridPoint(exact, i, STEPS_1D);
+            assertEquals(exact.calculateFitness(reals, 0, 1),
+                    fast.calculateFitness(reals, 0, 1),
+                    Function1.FAST_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void testFunction3WithinMaxError() {
+
+        GATestFunction exact = new Function3();
+        GATestFunction fast = new Function3(true);
+        float[] reals = new float[2];
+
+        assertEquals(0.0f, exact.getMaxAbsError(), 0.0f);
+        assertEquals(Function3.FAST_MAX_ERROR, fast.getMaxAbsError(), 0.0f);
+
+        for (int i = 0; i <= STEPS_2D; i++) {
+            reals[0] = gridPoint(exact, i, STEPS_2D);
+            for (int j = 0; j <= STEPS_2D; j++) {
+                reals[1] = gridPoint(exact, j, STEPS_2D);
+                assertEquals(exact.calculateFitness(reals, 0, 2),
+                        fast.calculateFitness(reals, 0, 2),
+                        Function3.FAST_MAX_ERROR);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSingle() {
+
+        GATestFunction[] funcs = { new Function1(), new Function1(true),
+                new Function2(), new Function3(), new Function3(true) };
+        int count = 50;
+
+        for (GATestFunction func : funcs) {
+            int numVars = func.getNumVars();
+            float[] reals = new float[count * numVars];
+            float[] fitness = new float[count];
+
+            for (int i = 0; i < reals.length; i++) {
+                reals[i] = gridPoint(func, i, reals.length - 1);
+            }
+
+            func.calculateFitnessBatch(reals, count, fitness);
+
+            for (int r = 0; r < count; r++) {
+                assertEquals(func.calculateFitness(reals, r * numVars,
+                        numVars), fitness[r], 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Returns the point i of n along a variable, from the lower to the
+     * upper bound of the search space.
+     */
+    private static float gridPoint(GATestFunction func, int i, int n) {
+
+        float l = func.getXLowerBound();
+        float u = func.getXUpperBound();
+
+        return l + (u - l) * i / n;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   FitnessCacheTest.java
+ */
+package sgavariationanalysis;
+
+import java.util.HashMap;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.binary.BinaryIndividual;
+import sgavariationanalysis.binary.BinaryPopulation;
+import sgavariationanalysis.binary.BinaryVariation;
+import sgavariationanalysis.cache.FitnessCache;
+import sgavariationanalysis.continuous.ContinuousIndividual;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class FitnessCacheTest {
+
+    @Test
+    public void testHitAfterPut() {
+
+        FitnessCache cache = new FitnessCache(1024, 2, 0.0f);
+        long[] words = new long[] { 7L, 0x5555L, 9L, 0x2AL };
+
+        assertTrue(Float.isNaN(cache.get(words, 2)));
+        cache.put(words, 2, 1.5f);
+        assertEquals(1.5f, cache.get(words, 2), 0.0f);
+        assertTrue(Float.isNaN(cache.get(words, 0)));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+
+    @Test
+    public void testEvictionKeepsEntriesConsistent() {
+
+        // Far more distinct keys than entries, so every stripe is evicting
+        // constantly. Any hit must still return the key's own value.
+        FitnessCache cache = new FitnessCache(64, 1, 0.0f);
+        HashMap<Long, Float> inserted = new HashMap<>();
+        Random rand = new Random(11);
+        long[] key = new long[1];
+
+        for (int i = 0; i < 200000; i++) {
+            key[0] = rand.nextInt(500);
+            float value = cache.get(key, 0);
+            if (Float.isNaN(value)) {
+                inserted.put(key[0], (float) key[0] * 3.0f);
+                cache.put(key, 0, key[0] * 3.0f);
+            }
+            else {
+                assertEquals(inserted.get(key[0]), value, 0.0f);
+            }
+        }
+
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void testQuantizedRealKeys() {
+
+        FitnessCache cache = FitnessCache.forContinuous(new Function2(),
+                256, 0.01f);
+        float[] reals = new float[] { 1.001f, -2.0f, 3.0f, 4.0f, 5.0f };
+
+        cache.put(reals, 0, 5, 42.0f);
+        reals[0] = 1.004f;
+        assertEquals(42.0f, cache.get(reals, 0, 5), 0.0f);
+        reals[0] = 1.02f;
+        assertTrue(Float.isNaN(cache.get(reals, 0, 5)));
+    }
+
+    @Test
+    public void testHitsAreNotCountedAsEvaluations() {
+
+        GATestFunction func1 = new Function1();
+        FitnessCache cache = FitnessCache.forBinary(func1, 1024);
+
+        BinaryIndividual.resetEvaluationCounters();
+        BinaryPopulation pop = new BinaryPopulation(func1,
+                new RandomStream(19), false, BinaryVariation.SPC, cache);
+        for (int gen = 0; gen < 50; gen++) {
+            pop.rwSelect();
+            pop.reproduce();
+        }
+
+        // A 12 gene chromosome repeats often, so most lookups hit, and
+        // only the misses reach the test function.
+        assertTrue(cache.getHits() > 0);
+        assertEquals(cache.getMisses(), BinaryIndividual.getEvaluationCount());
+    }
+
+    @Test
+    public void testQuantizedValueIsIndependentOfOrder() {
+
+        GATestFunction func2 = new Function2();
+        float[] near = new float[] { 1.001f, -2.0f, 3.0f, 4.0f, 5.0f };
+        float[] far = new float[] { 1.004f, -2.0f, 3.0f, 4.0f, 5.0f };
+        float[] snapped = new float[] { 1.0f, -2.0f, 3.0f, 4.0f, 5.0f };
+
+        // Both points fall in the same cell, so whichever is looked up
+        // first, both must get the value of the cell's snapped point.
+        float[] nearFirst = evaluateInOrder(func2, near, far);
+        float[] farFirst = evaluateInOrder(func2, far, near);
+        float expected = func2.calculateFitness(snapped, 0, 5);
+
+        assertEquals(expected, nearFirst[0], 1e-4f);
+        assertEquals(nearFirst[0], nearFirst[1], 0.0f);
+        assertEquals(nearFirst[0], farFirst[0], 0.0f);
+        assertEquals(nearFirst[0], farFirst[1], 0.0f);
+    }
+
+    /**
+     * Evaluates two individuals through a fresh quantized cache, in the
+     * given order, and returns their objective values in that order.
+     */
+    private static float[] evaluateInOrder(GATestFunction func,
+            float[] first, float[] second) {
+
+        FitnessCache cache = FitnessCache.forContinuous(func, 256, 0.01f);
+        RandomStream rand = new RandomStream(23);
+        ContinuousIndividual a = new ContinuousIndividual(func, rand, cache);
+        ContinuousIndividual b = new ContinuousIndividual(func, rand, cache);
+
+        a.setVars(first);
+        b.setVars(second);
+
+        return new float[] { a.getObjValue(), b.getObjValue() };
+    }
+}
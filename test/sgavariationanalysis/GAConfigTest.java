@@ -0,0 +1,46 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   GAConfigTest.java
+ */
+package sgavariationanalysis;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class GAConfigTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOddPopulationSize() {
+
+        new GAConfig(21, 10, 0.8f, 0.01f, 1, false, true);
+    }
+
+    @Test
+    public void testWithGray() {
+
+        GAConfig config = new GAConfig(20, 10, 0.8f, 0.01f, 3, false, true);
+        GAConfig gray = config.withGray(true);
+
+        assertSame(config, config.withGray(false));
+        assertTrue(gray.isGray());
+        assertEquals(config.getPopSize(), gray.getPopSize());
+        assertEquals(config.getMaxGen(), gray.getMaxGen());
+        assertEquals(config.getNumTrials(), gray.getNumTrials());
+    }
+
+    @Test
+    public void testToStringDescribesEveryField() {
+
+        String text = new GAConfig(20, 10, 0.8f, 0.01f, 3, true, false)
+                .toString();
+
+        assertTrue(text.contains("Population Size: 20"));
+        assertTrue(text.contains("Trials: 3"));
+        assertTrue(text.contains("Gray Code: true"));
+        assertTrue(text.contains("Alias Selection: false"));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ParallelEvaluatorTest.java
+ */
+package sgavariationanalysis;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.evaluation.ParallelEvaluator;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class ParallelEvaluatorTest {
+
+    @Test
+    public void testEveryIndexRunOnce() {
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelEvaluator evaluator = new ParallelEvaluator(pool, 3);
+        AtomicIntegerArray runs = new AtomicIntegerArray(1000);
+
+        try {
+            evaluator.forEach(runs.length(), i -> runs.incrementAndGet(i));
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        for (int i = 0; i < runs.length(); i++) {
+            assertEquals(1, runs.get(i));
+        }
+    }
+
+    @Test
+    public void testSmallRangeStaysOnCaller() {
+
+        ParallelEvaluator evaluator =
+                new ParallelEvaluator(ForkJoinPool.commonPool(), 64);
+        Thread caller = Thread.currentThread();
+
+        evaluator.forEach(20,
+                i -> assertSame(caller, Thread.currentThread()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGrainSize() {
+
+        new ParallelEvaluator(ForkJoinPool.commonPool(), 0);
+    }
+}
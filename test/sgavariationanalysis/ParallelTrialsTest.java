@@ -0,0 +1,97 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   ParallelTrialsTest.java
+ */
+package sgavariationanalysis;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.binary.BinaryIndividual;
+import sgavariationanalysis.binary.BinaryVariation;
+import sgavariationanalysis.continuous.ContinuousIndividual;
+import sgavariationanalysis.continuous.ContinuousVariation;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * Checks that the combined result of a run depends only on the seed, and
+ * not on the number of threads the trials are run on.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class ParallelTrialsTest {
+
+    /* A small configuration with more trials than threads */
+    private static final GAConfig CONFIG =
+            new GAConfig(20, 20, 0.8f, 0.05f, 12, false, true);
+
+    /* The thread counts compared against a single thread */
+    private static final int[] THREADS = { 2, 5 };
+
+    @Test
+    public void testBinaryTrialsIndependentOfThreads() {
+
+        GATestFunction func2 = new Function2();
+        TrialResult<BinaryIndividual> serial = runBinary(func2, 1);
+
+        for (int threads : THREADS) {
+            TrialResult<BinaryIndividual> parallel = runBinary(func2, threads);
+
+            assertEquals(serial.getBestObj(), parallel.getBestObj(), 0.0f);
+            assertEquals(serial.getWorstObj(), parallel.getWorstObj(), 0.0f);
+            assertEquals(serial.getTotalObj(), parallel.getTotalObj(), 0.0);
+            assertEquals(serial.getBestInd().getGenotype(),
+                    parallel.getBestInd().getGenotype());
+            assertEquals(serial.getWorstInd().getGenotype(),
+                    parallel.getWorstInd().getGenotype());
+        }
+    }
+
+    @Test
+    public void testContinuousTrialsIndependentOfThreads() {
+
+        GATestFunction func3 = new Function3();
+        TrialResult<ContinuousIndividual> serial = runContinuous(func3, 1);
+
+        for (int threads : THREADS) {
+            TrialResult<ContinuousIndividual> parallel =
+                    runContinuous(func3, threads);
+
+            assertEquals(serial.getBestObj(), parallel.getBestObj(), 0.0f);
+            assertEquals(serial.getWorstObj(), parallel.getWorstObj(), 0.0f);
+            assertEquals(serial.getTotalObj(), parallel.getTotalObj(), 0.0);
+            assertArrayEquals(vars(serial.getBestInd()),
+                    vars(parallel.getBestInd()), 0.0f);
+            assertArrayEquals(vars(serial.getWorstInd()),
+                    vars(parallel.getWorstInd()), 0.0f);
+        }
+    }
+
+    private static TrialResult<BinaryIndividual> runBinary(
+            GATestFunction func, int threads) {
+
+        return SGAVariationAnalysis.runTrials(new RandomStream(97), threads,
+                CONFIG, rand -> SGAVariationAnalysis.binaryTrial(func, rand,
+                        CONFIG, BinaryVariation.DPC, null),
+                func.isMaxProblem());
+    }
+
+    private static TrialResult<ContinuousIndividual> runContinuous(
+            GATestFunction func, int threads) {
+
+        return SGAVariationAnalysis.runTrials(new RandomStream(97), threads,
+                CONFIG, rand -> SGAVariationAnalysis.continuousTrial(func,
+                        rand, CONFIG, ContinuousVariation.BC, null),
+                func.isMaxProblem());
+    }
+
+    private static float[] vars(ContinuousIndividual ind) {
+
+        float[] res = new float[ind.getNumVars()];
+        ind.getVars(res);
+
+        return res;
+    }
+}
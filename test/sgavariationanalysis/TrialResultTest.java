@@ -0,0 +1,42 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   TrialResultTest.java
+ */
+package sgavariationanalysis;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class TrialResultTest {
+
+    @Test
+    public void testMergeKeepsSmallTotals() {
+
+        // A float total of 10^8 no longer changes when 1 is added to it
+        TrialResult<String> res =
+                new TrialResult<>("best", 1.0f, "worst", 0.0f, 1.0e8);
+
+        for (int i = 0; i < 1000; i++) {
+            res = res.merge(new TrialResult<>("best", 1.0f, "worst", 0.0f,
+                    1.0), true);
+        }
+
+        assertEquals(1.0e8 + 1000.0, res.getTotalObj(), 0.0);
+    }
+
+    @Test
+    public void testMergeKeepsEarlierTies() {
+
+        TrialResult<String> res = new TrialResult<>("best", 2.0f,
+                "worst", 1.0f, 3.0).merge(new TrialResult<>("later best",
+                2.0f, "later worst", 1.0f, 3.0), true);
+
+        assertEquals("best", res.getBestInd());
+        assertEquals("worst", res.getWorstInd());
+        assertEquals(6.0, res.getTotalObj(), 0.0);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   AllocationBenchmark.java
+ */
+package sgavariationanalysis.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import sgavariationanalysis.binary.BinaryPopulation;
+import sgavariationanalysis.continuous.ContinuousPopulation;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * Measures the bytes allocated by the current thread per generation of
+ * selection and reproduction, for every binary and continuous crossover
+ * operator, once the populations have reached a steady state. Evaluation
+ * of the new generation is included, so any allocation on the path to the
+ * test functions shows up in the figures.
+ *
+ * Usage: java sgavariationanalysis.benchmark.AllocationBenchmark [gens]
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class AllocationBenchmark {
+
+    private static final int WARMUP_GENERATIONS = 200;
+
+    private static final String[] BINARY_NAMES = new String[] {
+        "SPC", "DPC", "SPCRS", "DPCRS", "RC", "UC", "SC", "SCRS", "TPC"
+    };
+
+    private static final String[] CONTINUOUS_NAMES = new String[] {
+        "WAC", "LAC", "LC", "HC", "BC"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+
+        int gens = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        GATestFunction[] functions = new GATestFunction[] {
+            new Function1(), new Function2(), new Function3()
+        };
+
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counting is not supported.");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        printHeader("Binary", functions);
+        for (int op = 0; op < BINARY_NAMES.length; op++) {
+            System.out.printf("%-8s", BINARY_NAMES[op]);
+            for (GATestFunction func : functions) {
+                BinaryPopulation pop = new BinaryPopulation(func,
+                        new Random(42), false, op + 1);
+                System.out.printf(" %18.1f", measure(pop, gens));
+            }
+            System.out.println();
+        }
+
+        System.out.println();
+        printHeader("Continuous", functions);
+        for (int op = 0; op < CONTINUOUS_NAMES.length; op++) {
+            System.out.printf("%-8s", CONTINUOUS_NAMES[op]);
+            for (GATestFunction func : functions) {
+                ContinuousPopulation pop = new ContinuousPopulation(func,
+                        new Random(42), op + 1);
+                System.out.printf(" %18.1f", measure(pop, gens));
+            }
+            System.out.println();
+        }
+    }
+
+    private static void printHeader(String title,
+            GATestFunction[] functions) {
+
+        System.out.println(title + " (bytes/generation)");
+        System.out.print("Operator");
+        for (GATestFunction func : functions) {
+            System.out.printf(" %18s", func.getClass().getSimpleName());
+        }
+        System.out.println();
+    }
+
+    private static double measure(BinaryPopulation pop, int gens) {
+
+        for (int gen = 0; gen < WARMUP_GENERATIONS; gen++) {
+            pop.rwSelect();
+            pop.reproduce();
+        }
+
+        long start = allocatedBytes();
+        for (int gen = 0; gen < gens; gen++) {
+            pop.rwSelect();
+            pop.reproduce();
+        }
+
+        return (double) (allocatedBytes() - start) / gens;
+    }
+
+    private static double measure(ContinuousPopulation pop, int gens) {
+
+        for (int gen = 0; gen < WARMUP_GENERATIONS; gen++) {
+            pop.rwSelect();
+            pop.reproduce();
+        }
+
+        long start = allocatedBytes();
+        for (int gen = 0; gen < gens; gen++) {
+            pop.rwSelect();
+            pop.reproduce();
+        }
+
+        return (double) (allocatedBytes() - start) / gens;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   CrossoverBenchmark.java
+ */
+package sgavariationanalysis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import sgavariationanalysis.binary.BinaryIndividual;
+import sgavariationanalysis.binary.BinaryVariation;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * Measures the cost of each of the nine binary crossover operators on the
+ * same parents, so the operators can be compared on equal terms. Children 
+ * are evaluated lazily, so the timings exclude the fitness function.
+ * 
+ * Usage: java sgavariationanalysis.benchmark.CrossoverBenchmark [pairs]
+ * 
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class CrossoverBenchmark {
+    
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    
+    private static final String[] NAMES = new String[] {
+        "SPC", "DPC", "SPCRS", "DPCRS", "RC", "UC", "SC", "SCRS", "TPC"
+    };
+    
+    /* Consumes the children so the JIT cannot drop the work */
+    private static volatile int sink;
+    
+    public static void main(String[] args) {
+        
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        GATestFunction[] functions = new GATestFunction[] {
+            new Function1(), new Function2(), new Function3()
+        };
+        
+        System.out.print("Operator");
+        for (GATestFunction func : functions) {
+            System.out.printf(" %18s", func.getClass().getSimpleName() + 
+                    " (ns/pair)");
+        }
+        System.out.println();
+        
+        double[][] nanos = new double[NAMES.length][functions.length];
+        for (int f = 0; f < functions.length; f++) {
+            Random rand = new Random(42);
+            BinaryIndividual[] parents = new BinaryIndividual[pairs * 2 + 1];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = new BinaryIndividual(functions[f], rand, false);
+            }
+            for (int op = 0; op < NAMES.length; op++) {
+                nanos[op][f] = time(op + 1, parents, pairs);
+            }
+        }
+        
+        for (int op = 0; op < NAMES.length; op++) {
+            System.out.printf("%-8s", NAMES[op]);
+            for (int f = 0; f < functions.length; f++) {
+                System.out.printf(" %18.1f", nanos[op][f]);
+            }
+            System.out.println();
+        }
+    }
+    
+    private static double time(int id, BinaryIndividual[] parents, 
+            int pairs) {
+        
+        long total = 0;
+        int count = 0;
+        
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < pairs; i++) {
+                count += crossover(id, parents[2 * i], parents[2 * i + 1], 
+                        parents[2 * i + 2]).size();
+            }
+            if (round >= WARMUP_ROUNDS) {
+                total += System.nanoTime() - start;
+            }
+        }
+        sink = count;
+        
+        return (double) total / ((double) pairs * MEASURED_ROUNDS);
+    }
+    
+    private static ArrayList<BinaryIndividual> crossover(int id, 
+            BinaryIndividual a, BinaryIndividual b, BinaryIndividual c) {
+        
+        switch (id) {
+            case BinaryVariation.SPC:
+                return BinaryVariation.singlePointCrossover(a, b, false);
+            case BinaryVariation.DPC:
+                return BinaryVariation.dualPointCrossover(a, b, false);
+            case BinaryVariation.SPCRS:
+                return BinaryVariation.singlePointCrossover(a, b, true);
+            case BinaryVariation.DPCRS:
+                return BinaryVariation.dualPointCrossover(a, b, true);
+            case BinaryVariation.RC:
+                return BinaryVariation.ringCrossover(a, b);
+            case BinaryVariation.UC:
+                return BinaryVariation.uniformCrossover(a, b);
+            case BinaryVariation.SC:
+                return BinaryVariation.shuffleCrossover(a, b, false);
+            case BinaryVariation.SCRS:
+                return BinaryVariation.shuffleCrossover(a, b, true);
+            default:
+                return BinaryVariation.threeParentCrossover(a, c, b);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   DecodeBenchmark.java
+ */
+package sgavariationanalysis.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+import sgavariationanalysis.binary.BinaryDecoder;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+
+/**
+ * Compares the throughput of the packed chromosome decoder against the
+ * original decoding path, which summed Math.pow(2, i) over a list of
+ * boolean genes for each variable.
+ * 
+ * Usage: java sgavariationanalysis.benchmark.DecodeBenchmark [chromosomes]
+ * 
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class DecodeBenchmark {
+    
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    
+    /* Consumes the decoded values so the JIT cannot drop the work */
+    private static volatile double sink;
+    
+    public static void main(String[] args) {
+        
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        GATestFunction[] functions = new GATestFunction[] {
+            new Function1(), new Function2(), new Function3()
+        };
+        
+        System.out.println("Function   Decoding   Legacy (ns/var)  "
+                + "Decoder (ns/var)  Speedup");
+        
+        for (GATestFunction func : functions) {
+            for (boolean isGray : new boolean[] { false, true }) {
+                run(func, isGray, count);
+            }
+        }
+    }
+    
+    private static void run(GATestFunction func, boolean isGray, int count) {
+        
+        Random rand = new Random(42);
+        int numVars = func.getNumVars();
+        int len = func.getGenesPerVar();
+        int numWords = (numVars * len + 63) / 64;
+        
+        long[][] packed = new long[count][numWords];
+        ArrayList<ArrayList<ArrayList<Boolean>>> lists = new ArrayList<>();
+        for (int c = 0; c < count; c++) {
+            ArrayList<ArrayList<Boolean>> chromosome = new ArrayList<>();
+            for (int v = 0; v < numVars; v++) {
+                ArrayList<Boolean> var = new ArrayList<>();
+                for (int i = 0; i < len; i++) {
+                    boolean gene = rand.nextBoolean();
+                    int locus = v * len + i;
+                    var.add(gene);
+                    if (gene) {
+                        packed[c][locus >>> 6] |= 1L << locus;
+                    }
+                }
+                chromosome.add(var);
+            }
+            lists.add(chromosome);
+        }
+        
+        BinaryDecoder decoder = new BinaryDecoder(func, isGray);
+        float[] reals = new float[numVars];
+        
+        if (!isGray) {
+            for (int c = 0; c < count; c++) {
+                ArrayList<Float> expected = 
+                        legacyDecode(lists.get(c), func, false);
+                decoder.decode(packed[c], 0, reals);
+                for (int v = 0; v < numVars; v++) {
+                    if (expected.get(v) != reals[v]) {
+                        throw new IllegalStateException("Decoded values "
+                                + "differ for " + func.getClass());
+                    }
+                }
+            }
+        }
+        
+        double sum = 0.0;
+        long legacyNanos = 0;
+        long decoderNanos = 0;
+        
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            
+            long start = System.nanoTime();
+            for (int c = 0; c < count; c++) {
+                sum += legacyDecode(lists.get(c), func, isGray).get(0);
+            }
+            long mid = System.nanoTime();
+            for (int c = 0; c < count; c++) {
+                decoder.decode(packed[c], 0, reals);
+                sum += reals[0];
+            }
+            long end = System.nanoTime();
+            
+            if (round >= WARMUP_ROUNDS) {
+                legacyNanos += mid - start;
+                decoderNanos += end - mid;
+            }
+        }
+        
+        sink = sum;
+        double vars = (double) count * numVars * MEASURED_ROUNDS;
+        System.out.printf("%-10s %-10s %15.2f %17.2f %8.1fx%n",
+                func.getClass().getSimpleName(), isGray ? "gray" : "binary",
+                legacyNanos / vars, decoderNanos / vars,
+                (double) legacyNanos / decoderNanos);
+    }
+    
+    /*
+     * The decoding path used before the packed decoder, including its
+     * gray code handling.
+     */
+    private static ArrayList<Float> legacyDecode(
+            ArrayList<ArrayList<Boolean>> chromosome, GATestFunction func,
+            boolean isGray) {
+        
+        ArrayList<Float> res = new ArrayList<>();
+        float xLower = func.getXLowerBound();
+        float xUpper = func.getXUpperBound();
+        
+        for (int vars = 0; vars < func.getNumVars(); vars++) {
+            long binary = 0;
+            for (int i = 0; i < func.getGenesPerVar(); i++) {
+                binary += chromosome.get(vars).get(i) ? Math.pow(2, i) : 0;
+            }
+            
+            if (isGray) {
+                binary = (binary >> 1) ^ binary;
+            }
+            
+            res.add(vars, (float) binary / 
+                    (float) Math.pow(2, chromosome.get(vars).size()) * 
+                    (xUpper - xLower) + xLower
+            );
+        }
+        
+        return res;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   KernelBenchmark.java
+ */
+package sgavariationanalysis.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import sgavariationanalysis.continuous.VariationKernels;
+
+/**
+ * Compares the scalar variation kernels with the preferred kernels of the
+ * runtime at 64, 1k and 16k variables, and checks that both produce the
+ * same children. The vector kernels are only loaded from the multi-release
+ * jar with the incubating module added, for example:
+ *
+ * java --add-modules jdk.incubator.vector
+ *      -cp dist/SGAVariationAnalysis.jar:build/test/classes
+ *      sgavariationanalysis.benchmark.KernelBenchmark [calls]
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class KernelBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final int[] SIZES = new int[] { 64, 1024, 16384 };
+
+    private static final String[] NAMES = new String[] {
+        "WAC", "LAC", "LC", "MUT"
+    };
+
+    private static final float LOWER = -5.0f;
+    private static final float UPPER = 5.0f;
+
+    /* Consumes the children so the JIT cannot drop the work */
+    private static volatile float sink;
+
+    public static void main(String[] args) {
+
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        VariationKernels scalar = VariationKernels.scalar();
+        VariationKernels preferred = VariationKernels.preferred();
+
+        System.out.println("Preferred kernels: " + preferred.getName());
+        System.out.printf("%-8s %8s %16s %16s %10s%n", "Kernel", "Vars",
+                "Scalar (ns)", "Preferred (ns)", "Speedup");
+
+        for (int n : SIZES) {
+            Random rand = new Random(42);
+            float[][] in = new float[4][n];
+            for (float[] row : in) {
+                for (int i = 0; i < n; i++) {
+                    row[i] = LOWER + rand.nextFloat() * (UPPER - LOWER);
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                in[3][i] = rand.nextFloat() < 0.01f ? rand.nextFloat() : -1f;
+            }
+            int scaledCalls = Math.max(1, calls * SIZES[0] / n);
+
+            for (int k = 0; k < NAMES.length; k++) {
+                check(k, scalar, preferred, in, n);
+                double s = time(k, scalar, in, n, scaledCalls);
+                double p = time(k, preferred, in, n, scaledCalls);
+                System.out.printf("%-8s %8d %16.1f %16.1f %9.2fx%n",
+                        NAMES[k], n, s, p, s / p);
+            }
+        }
+    }
+
+    private static void run(int kernel, VariationKernels kernels,
+            float[][] in, float[][] out, int n) {
+
+        switch (kernel) {
+            case 0:
+                kernels.arithmetic(in[0], 0, in[1], 0, out[0], 0, out[1], 0,
+                        0.3f, 0.7f, n);
+                break;
+            case 1:
+                kernels.localArithmetic(in[0], 0, in[1], 0, out[0], 0,
+                        out[1], 0, in[2], n);
+                break;
+            case 2:
+                kernels.linear(in[0], 0, in[1], 0, out[0], 0, out[1], 0,
+                        out[2], 0, LOWER, UPPER, n);
+                break;
+            default:
+                System.arraycopy(in[0], 0, out[0], 0, n);
+                kernels.uniformMutation(out[0], 0, in[3], LOWER, UPPER, n);
+                break;
+        }
+    }
+
+    private static void check(int kernel, VariationKernels expected,
+            VariationKernels actual, float[][] in, int n) {
+
+        float[][] a = new float[3][n];
+        float[][] b = new float[3][n];
+        run(kernel, expected, in, a, n);
+        run(kernel, actual, in, b, n);
+
+        if (!Arrays.deepEquals(a, b)) {
+            throw new IllegalStateException("KernelBenchmark: "
+                    + NAMES[kernel] + " results differ at " + n + " vars.");
+        }
+    }
+
+    private static double time(int kernel, VariationKernels kernels,
+            float[][] in, int n, int calls) {
+
+        float[][] out = new float[3][n];
+        long total = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                run(kernel, kernels, in, out, n);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round >= WARMUP_ROUNDS) {
+                total += elapsed;
+            }
+            sink += out[0][n - 1];
+        }
+
+        return (double) total / (MEASURED_ROUNDS * (long) calls);
+    }
+}
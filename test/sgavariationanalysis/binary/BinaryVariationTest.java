@@ -0,0 +1,266 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   BinaryVariationTest.java
+ */
+package sgavariationanalysis.binary;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import sgavariationanalysis.GAConfig;
+import sgavariationanalysis.gatestfunction.Function1;
+import sgavariationanalysis.gatestfunction.Function2;
+import sgavariationanalysis.gatestfunction.Function3;
+import sgavariationanalysis.gatestfunction.GATestFunction;
+import sgavariationanalysis.random.RandomStream;
+
+/**
+ * Checks the packed-word variation operators against the per-gene
+ * semantics of the original boolean chromosome operators. Function2 is
+ * used where one length will do, as its 70 gene chromosome spans two 
+ * words and is not a multiple of 64 long.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class BinaryVariationTest {
+
+    /* The word offset of the rows used as individuals */
+    private static final int OFF = 2;
+
+    @Test
+    public void testMutationMatchesPerGeneGaps() {
+
+        GATestFunction func2 = new Function2();
+        GAConfig config = new GAConfig(20, 1, 0.8f, 0.05f, 1, false, false);
+        double logNoMutation = Math.log1p(-config.getMutationProb());
+
+        for (int seed = 0; seed < 200; seed++) {
+            BinaryIndividual mutated = row(func2, seed);
+            BinaryIndividual expected = row(func2, seed);
+            int numGenes = mutated.getNumGenes();
+
+            BinaryVariation.bitFlipMutation(mutated, config);
+
+            // Replay the same stream one gene at a time, flipping the gene
+            // at the end of every geometric gap.
+            RandomStream rand = expected.getRand();
+            long[] words = expected.getWords();
+            long locus = gap(rand, logNoMutation, numGenes);
+            while (locus < numGenes) {
+                int l = (int) locus;
+                boolean gene = BitVectors.get(words, OFF, l);
+                BitVectors.set(words, OFF, l, !gene);
+                locus += 1 + gap(rand, logNoMutation, numGenes);
+            }
+
+            assertArrayEquals(expected.getWords(), mutated.getWords());
+        }
+    }
+
+    @Test
+    public void testMutationRatePerGene() {
+
+        GATestFunction func2 = new Function2();
+        GAConfig config = new GAConfig(20, 1, 0.8f, 0.1f, 1, false, false);
+        BinaryIndividual ind = row(func2, 41);
+        int numGenes = ind.getNumGenes();
+        int numMutations = 20000;
+        int[] flips = new int[numGenes];
+
+        for (int i = 0; i < numMutations; i++) {
+            long[] before = ind.copyWords();
+            BinaryVariation.bitFlipMutation(ind, config);
+            long[] after = ind.copyWords();
+            for (int l = 0; l < numGenes; l++) {
+                if (BitVectors.get(before, 0, l) !=
+                        BitVectors.get(after, 0, l)) {
+                    flips[l]++;
+                }
+            }
+        }
+
+        // Each gene flips with probability 0.1, so about 2000 times with
+        // a standard deviation of about 42.
+        for (int l = 0; l < numGenes; l++) {
+            assertEquals(2000, flips[l], 250);
+        }
+    }
+
+    @Test
+    public void testNoMutation() {
+
+        GATestFunction func2 = new Function2();
+        GAConfig config = new GAConfig(20, 1, 0.8f, 0.0f, 1, false, false);
+        BinaryIndividual ind = row(func2, 43);
+        long[] before = ind.copyWords();
+
+        BinaryVariation.bitFlipMutation(ind, config);
+
+        assertArrayEquals(before, ind.copyWords());
+    }
+
+    @Test
+    public void testMutationProbabilityOfOne() {
+
+        // log(1 - p) is -Infinity, so every gap is zero and every gene of
+        // every length flips.
+        GATestFunction[] funcs = { new Function1(), new Function2(),
+                new Function3() };
+        GAConfig config = new GAConfig(20, 1, 0.8f, 1.0f, 1, false, false);
+
+        for (GATestFunction func : funcs) {
+            BinaryIndividual ind = row(func, 47);
+            int numGenes = ind.getNumGenes();
+            long[] before = ind.copyWords();
+
+            BinaryVariation.bitFlipMutation(ind, config);
+
+            long[] after = ind.copyWords();
+            for (int l = 0; l < numGenes; l++) {
+                assertEquals(!BitVectors.get(before, 0, l),
+                        BitVectors.get(after, 0, l));
+            }
+            assertEquals(0L, ind.getWords()[OFF + lastWord(numGenes)]
+                    & ~BitVectors.tailMask(numGenes));
+        }
+    }
+
+    @Test
+    public void testShuffleIsReproduciblePermutation() {
+
+        // The shrinking lengths reuse the thread's buffer, which still
+        // holds the longer permutation past the end of the shorter one.
+        int[] lengths = { 70, 130, 64, 5, 1 };
+
+        for (int numGenes : lengths) {
+            int[] first = Arrays.copyOf(BinaryVariation.shuffle(
+                    new RandomStream(59), numGenes), numGenes);
+            int[] second = Arrays.copyOf(BinaryVariation.shuffle(
+                    new RandomStream(59), numGenes), numGenes);
+
+            assertArrayEquals(first, second);
+
+            int[] seen = new int[numGenes];
+            for (int locus : first) {
+                seen[locus]++;
+            }
+            for (int i = 0; i < numGenes; i++) {
+                assertEquals(1, seen[i]);
+            }
+        }
+
+        assertFalse(Arrays.equals(
+                Arrays.copyOf(BinaryVariation.shuffle(
+                        new RandomStream(59), 70), 70),
+                Arrays.copyOf(BinaryVariation.shuffle(
+                        new RandomStream(61), 70), 70)));
+    }
+
+    @Test
+    public void testRingMatchesBooleanRing() {
+
+        // Function2 widened to 10 variables gives a 140 gene chromosome
+        // over three words.
+        GATestFunction wide = new Function2() {
+            @Override
+            public int getNumVars() {
+                return 10;
+            }
+        };
+        GATestFunction[] funcs = { new Function1(), new Function3(),
+                new Function2(), wide };
+
+        for (GATestFunction func : funcs) {
+            BinaryIndividual parentA = row(func, 67);
+            BinaryIndividual parentB = row(func, 71);
+            int numGenes = parentA.getNumGenes();
+            boolean[] ring = new boolean[2 * numGenes];
+
+            for (int i = 0; i < numGenes; i++) {
+                ring[i] = parentA.getGene(i);
+                ring[numGenes + i] = parentB.getGene(i);
+            }
+
+            for (int cut = 1; cut < numGenes; cut++) {
+                BinaryIndividual childA = row(func, 73);
+                BinaryIndividual childB = row(func, 79);
+
+                BinaryVariation.cutRing(parentA, parentB, childA, childB,
+                        cut);
+
+                // The original read the ring forwards and backwards from
+                // the cut point, wrapping around its ends.
+                int n = ring.length;
+                for (int i = 0; i < numGenes; i++) {
+                    assertEquals(ring[(cut + i) % n], childA.getGene(i));
+                    assertEquals(ring[((cut - i) % n + n) % n],
+                            childB.getGene(i));
+                }
+                assertEquals(0L, childA.getWords()[OFF + lastWord(numGenes)]
+                        & ~BitVectors.tailMask(numGenes));
+                assertEquals(0L, childB.getWords()[OFF + lastWord(numGenes)]
+                        & ~BitVectors.tailMask(numGenes));
+            }
+        }
+    }
+
+    @Test
+    public void testRingExactPattern() {
+
+        // Function1 has 12 genes, parent A all ones and parent B all
+        // zeros. Cutting at 5, child A is genes 5 to 11 of A then genes 0
+        // to 4 of B, and child B is genes 5 to 0 of A then 11 to 6 of B.
+        BinaryIndividual parentA = row(new Function1(), 83);
+        BinaryIndividual parentB = row(new Function1(), 89);
+        BinaryIndividual childA = row(new Function1(), 97);
+        BinaryIndividual childB = row(new Function1(), 101);
+        parentA.getWords()[OFF] = 0xFFFL;
+        parentB.getWords()[OFF] = 0x0L;
+
+        BinaryVariation.cutRing(parentA, parentB, childA, childB, 5);
+
+        assertEquals(0x07FL, childA.getWords()[OFF]);
+        assertEquals(0x03FL, childB.getWords()[OFF]);
+    }
+
+    /**
+     * Returns an individual viewing a random row at word offset OFF of a
+     * matrix. Individuals made from the same seed have the same row and
+     * draw the same numbers.
+     */
+    private static BinaryIndividual row(GATestFunction testFunc, int seed) {
+
+        BinaryIndividual prototype = new BinaryIndividual(testFunc,
+                new RandomStream(seed), false, null);
+        int numGenes = prototype.getNumGenes();
+        int numWords = BitVectors.numWords(numGenes);
+        long[] matrix = new long[OFF + numWords];
+        Random bits = new Random(seed);
+
+        for (int w = 0; w < numWords; w++) {
+            matrix[OFF + w] = bits.nextLong();
+        }
+        matrix[OFF + numWords - 1] &= BitVectors.tailMask(numGenes);
+
+        return new BinaryIndividual(matrix, OFF, prototype);
+    }
+
+    /**
+     * Samples a geometric gap as the original per-gene loop would skip it.
+     */
+    private static long gap(RandomStream rand, double logNoMutation,
+            int limit) {
+
+        double gap = Math.log(1.0 - rand.nextDouble()) / logNoMutation;
+
+        return gap < limit ? (long) gap : limit;
+    }
+
+    /**
+     * Returns the index of the last word of a row.
+     */
+    private static int lastWord(int numGenes) {
+        return BitVectors.numWords(numGenes) - 1;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   BitVectorsTest.java
+ */
+package sgavariationanalysis.binary;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the packed-word kernels against the per-gene semantics of the
+ * original boolean chromosome operators. The vectors are stored at a
+ * non-zero word offset, as rows of a genotype matrix are, and the lengths
+ * include ones that are not a multiple of 64.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class BitVectorsTest {
+
+    /* The lengths tested, around and across word boundaries */
+    private static final int[] LENGTHS = { 1, 2, 63, 64, 65, 127, 130 };
+
+    /* The word offset of every vector */
+    private static final int OFF = 3;
+
+    @Test
+    public void testSinglePointSwap() {
+
+        Random rand = new Random(17);
+
+        for (int numGenes : LENGTHS) {
+            for (int crossPoint = 0; crossPoint < numGenes; crossPoint++) {
+                long[] a = randomVector(rand, numGenes);
+                long[] b = randomVector(rand, numGenes);
+                boolean[] genesA = toGenes(a, numGenes);
+                boolean[] genesB = toGenes(b, numGenes);
+
+                BitVectors.swapRange(a, OFF, b, OFF, crossPoint + 1,
+                        numGenes);
+
+                // The genes after the cross point are exchanged
+                for (int j = 0; j < numGenes; j++) {
+                    boolean swap = j > crossPoint;
+                    assertEquals(swap ? genesB[j] : genesA[j],
+                            BitVectors.get(a, OFF, j));
+                    assertEquals(swap ? genesA[j] : genesB[j],
+                            BitVectors.get(b, OFF, j));
+                }
+                assertTailClear(a, numGenes);
+                assertTailClear(b, numGenes);
+            }
+        }
+    }
+
+    @Test
+    public void testDualPointSwap() {
+
+        Random rand = new Random(19);
+
+        for (int numGenes : LENGTHS) {
+            for (int from = 0; from < numGenes; from++) {
+                for (int to = from; to <= numGenes; to++) {
+                    long[] a = randomVector(rand, numGenes);
+                    long[] b = randomVector(rand, numGenes);
+                    boolean[] genesA = toGenes(a, numGenes);
+                    boolean[] genesB = toGenes(b, numGenes);
+
+                    BitVectors.swapRange(a, OFF, b, OFF, from, to);
+
+                    for (int j = 0; j < numGenes; j++) {
+                        boolean swap = j >= from && j < to;
+                        assertEquals(swap ? genesB[j] : genesA[j],
+                                BitVectors.get(a, OFF, j));
+                        assertEquals(swap ? genesA[j] : genesB[j],
+                                BitVectors.get(b, OFF, j));
+                    }
+                    assertTailClear(a, numGenes);
+                    assertTailClear(b, numGenes);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSinglePointSwapExactPattern() {
+
+        // 70 genes, crossing after gene 60, so the exchanged genes 61 to 69
+        // straddle the boundary between the two words.
+        long[] a = new long[] { -1L, -1L, -1L, 0x3FL };
+        long[] b = new long[4];
+
+        BitVectors.swapRange(a, 2, b, 0, 61, 70);
+
+        assertEquals(0x1FFFFFFFFFFFFFFFL, a[2]);
+        assertEquals(0x0L, a[3]);
+        assertEquals(0xE000000000000000L, b[0]);
+        assertEquals(0x3FL, b[1]);
+        assertEquals(-1L, a[0]);
+        assertEquals(-1L, a[1]);
+    }
+
+    @Test
+    public void testUniformMaskedSwap() {
+
+        Random rand = new Random(23);
+
+        for (int numGenes : LENGTHS) {
+            long[] a = randomVector(rand, numGenes);
+            long[] b = randomVector(rand, numGenes);
+            boolean[] genesA = toGenes(a, numGenes);
+            boolean[] genesB = toGenes(b, numGenes);
+            int numWords = BitVectors.numWords(numGenes);
+            long[] masks = new long[numWords];
+
+            for (int w = 0; w < numWords; w++) {
+                masks[w] = rand.nextLong();
+            }
+            masks[numWords - 1] &= BitVectors.tailMask(numGenes);
+            for (int w = 0; w < numWords; w++) {
+                BitVectors.swapMasked(a, OFF, b, OFF, w, masks[w]);
+            }
+
+            for (int j = 0; j < numGenes; j++) {
+                boolean swap = (masks[j >>> 6] & (1L << j)) != 0;
+                assertEquals(swap ? genesB[j] : genesA[j],
+                        BitVectors.get(a, OFF, j));
+                assertEquals(swap ? genesA[j] : genesB[j],
+                        BitVectors.get(b, OFF, j));
+            }
+            assertTailClear(a, numGenes);
+            assertTailClear(b, numGenes);
+        }
+    }
+
+    @Test
+    public void testThreeParentSelect() {
+
+        Random rand = new Random(29);
+
+        for (int i = 0; i < 1000; i++) {
+            long a = rand.nextLong();
+            long b = rand.nextLong();
+            long c = rand.nextLong();
+            long childA = BitVectors.select(a, b, c);
+            long childB = BitVectors.select(c, b, a);
+
+            for (int j = 0; j < 64; j++) {
+                boolean pA = (a & (1L << j)) != 0;
+                boolean pB = (b & (1L << j)) != 0;
+                boolean pC = (c & (1L << j)) != 0;
+                assertEquals(!(pA ^ pB) ? pA : pC,
+                        (childA & (1L << j)) != 0);
+                assertEquals(!(pC ^ pB) ? pC : pA,
+                        (childB & (1L << j)) != 0);
+            }
+        }
+    }
+
+    @Test
+    public void testDifferenceScans() {
+
+        Random rand = new Random(37);
+
+        for (int numGenes : LENGTHS) {
+            for (int n = 0; n < 20; n++) {
+                long[] a = randomVector(rand, numGenes);
+                long[] b = randomVector(rand, numGenes);
+
+                // Make the vectors differ in only a few loci, so the scans
+                // have to cross words to find them.
+                for (int w = 0; w < BitVectors.numWords(numGenes); w++) {
+                    b[OFF + w] = a[OFF + w];
+                }
+                for (int k = rand.nextInt(4); k > 0; k--) {
+                    int l = rand.nextInt(numGenes);
+                    BitVectors.set(b, OFF, l, !BitVectors.get(a, OFF, l));
+                }
+
+                for (int from = 0; from <= numGenes; from++) {
+                    for (int to = from; to <= numGenes; to++) {
+                        int first = -1;
+                        int last = -1;
+                        for (int i = from; i < to; i++) {
+                            if (BitVectors.get(a, OFF, i) ^
+                                    BitVectors.get(b, OFF, i)) {
+                                first = first < 0 ? i : first;
+                                last = i;
+                            }
+                        }
+                        assertEquals(first, BitVectors.firstDifference(
+                                a, OFF, b, OFF, from, to));
+                        assertEquals(last, BitVectors.lastDifference(
+                                a, OFF, b, OFF, from, to));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyBitsAcrossWords() {
+
+        Random rand = new Random(31);
+
+        for (int numGenes : LENGTHS) {
+            long[] src = randomVector(rand, numGenes);
+            boolean[] genes = toGenes(src, numGenes);
+
+            for (int from = 0; from < numGenes; from++) {
+                for (int to = 0; to < numGenes - from; to++) {
+                    int numBits = Math.min(numGenes - from, numGenes - to);
+                    long[] dst = randomVector(rand, numGenes);
+                    long[] rev = randomVector(rand, numGenes);
+                    boolean[] before = toGenes(dst, numGenes);
+                    boolean[] beforeRev = toGenes(rev, numGenes);
+
+                    BitVectors.copyBits(src, OFF, from, dst, OFF, to,
+                            numBits);
+                    BitVectors.copyBitsReversed(src, OFF, from, rev, OFF,
+                            to, numBits);
+
+                    for (int j = 0; j < numGenes; j++) {
+                        boolean inRange = j >= to && j < to + numBits;
+                        assertEquals(inRange ? genes[from + j - to]
+                                : before[j], BitVectors.get(dst, OFF, j));
+                        assertEquals(inRange
+                                ? genes[from + numBits - 1 - (j - to)]
+                                : beforeRev[j], BitVectors.get(rev, OFF, j));
+                    }
+                    assertTailClear(dst, numGenes);
+                    assertTailClear(rev, numGenes);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an array holding a random bit-vector of the given length at
+     * word offset OFF, with the words around it filled with ones so that
+     * a kernel writing outside the vector is caught.
+     */
+    static long[] randomVector(Random rand, int numGenes) {
+
+        int numWords = BitVectors.numWords(numGenes);
+        long[] words = new long[OFF + numWords + 1];
+
+        Arrays.fill(words, -1L);
+        for (int w = 0; w < numWords; w++) {
+            words[OFF + w] = rand.nextLong();
+        }
+        words[OFF + numWords - 1] &= BitVectors.tailMask(numGenes);
+
+        return words;
+    }
+
+    /**
+     * Returns the genes of the bit-vector at word offset OFF.
+     */
+    static boolean[] toGenes(long[] words, int numGenes) {
+
+        boolean[] genes = new boolean[numGenes];
+        for (int j = 0; j < numGenes; j++) {
+            genes[j] = BitVectors.get(words, OFF, j);
+        }
+
+        return genes;
+    }
+
+    /**
+     * Asserts the unused bits of the last word are clear and the words
+     * around the vector are untouched.
+     */
+    static void assertTailClear(long[] words, int numGenes) {
+
+        int numWords = BitVectors.numWords(numGenes);
+
+        assertEquals(0L, words[OFF + numWords - 1] &
+                ~BitVectors.tailMask(numGenes));
+        assertEquals(-1L, words[OFF - 1]);
+        assertEquals(-1L, words[OFF + numWords]);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Author: Brett Crawford <brett.crawford@temple.edu>
+ *  File:   RouletteWheelTest.java
+ */
+package sgavariationanalysis.selection;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that both wheels return a valid individual for spins at the very
+ * top of the wheel when the relative fitness values sum to slightly less
+ * than one, as they do after float round-off.
+ *
+ * @author Brett Crawford <brett.crawford@temple.edu>
+ */
+public class RouletteWheelTest {
+
+    /* Spins at and just below the largest value nextFloat returns */
+    private static final float[] TOP_SPINS = {
+        Math.nextDown(1.0f),
+        Math.nextDown(Math.nextDown(1.0f)),
+        1.0f - 1e-6f,
+        1.0f - 1e-5f
+    };
+
+    @Test
+    public void testCumulativeTopOfShortWheel() {
+
+        // Ten weights of 0.0999999 sum to 0.999999, and the zero weight
+        // at the end must never be selected.
+        float[] weights = new float[11];
+        for (int i = 0; i < 10; i++) {
+            weights[i] = 0.0999999f;
+        }
+        CumulativeRouletteWheel wheel = new CumulativeRouletteWheel();
+        wheel.build(weights, weights.length);
+
+        for (float spin : TOP_SPINS) {
+            assertEquals(9, wheel.selectAt(spin));
+        }
+        assertEquals(0, wheel.selectAt(0.0f));
+    }
+
+    @Test
+    public void testCumulativeTopSpins() {
+
+        Random rand = new Random(47);
+        CumulativeRouletteWheel wheel = new CumulativeRouletteWheel();
+
+        for (int n = 0; n < 1000; n++) {
+            float[] weights = shortWeights(rand, 1 + rand.nextInt(200));
+            wheel.build(weights, weights.length);
+
+            for (float spin : TOP_SPINS) {
+                assertValid(weights, wheel.selectAt(spin));
+            }
+        }
+    }
+
+    @Test
+    public void testAliasTopSpins() {
+
+        Random rand = new Random(53);
+        AliasRouletteWheel wheel = new AliasRouletteWheel();
+
+        for (int n = 0; n < 1000; n++) {
+            float[] weights = shortWeights(rand, 1 + rand.nextInt(200));
+            wheel.build(weights, weights.length);
+
+            for (float spin : TOP_SPINS) {
+                assertValid(weights, wheel.selectAt(spin));
+                assertValid(weights, wheel.selectAt(Math.nextDown(1.0)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertValid(weights, wheel.selectAt(rand.nextDouble()));
+            }
+        }
+    }
+
+    /**
+     * Returns relative fitness values whose float sum falls slightly short
+     * of one, with about a tenth of them zero.
+     */
+    private static float[] shortWeights(Random rand, int size) {
+
+        float[] weights = new float[size];
+        float total = 0.0f;
+
+        for (int i = 0; i < size; i++) {
+            weights[i] = rand.nextInt(10) == 0 ? 0.0f : rand.nextFloat();
+            total += weights[i];
+        }
+        if (total == 0.0f) {
+            weights[0] = 1.0f;
+            total = 1.0f;
+        }
+        for (int i = 0; i < size; i++) {
+            weights[i] = weights[i] / total * (1.0f - 1e-6f);
+        }
+
+        return weights;
+    }
+
+    /**
+     * Asserts the index selects an individual with a slice of the wheel.
+     */
+    private static void assertValid(float[] weights, int index) {
+
+        assertTrue(index >= 0 && index < weights.length);
+        assertTrue(weights[index] > 0.0f);
+    }
+}